@@ -0,0 +1,76 @@
+package com.jie.file.benchmark;
+
+import com.jie.file.utils.ContentTypeSniffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 根据文件头识别文件类型的开销
+ *
+ * @author jie
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentTypeSnifferBenchmark {
+
+    @Param({"png", "mp4", "docx", "tar", "unknown"})
+    public String format;
+
+    private byte[] header;
+
+    private String originalFilename;
+
+    @Setup
+    public void setup() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        switch (format) {
+            case "png":
+                out.write(0x89);
+                write(out, "PNG\r\n\u001a\n");
+                break;
+            case "mp4":
+                write(out, "\u0000\u0000\u0000\u0018ftypisom");
+                break;
+            case "docx":
+                write(out, "PK\u0003\u0004");
+                break;
+            case "tar":
+                out.write(new byte[257], 0, 257);
+                write(out, "ustar");
+                break;
+            default:
+                write(out, "plain text content");
+        }
+        header = new byte[ContentTypeSniffer.HEADER_SIZE];
+        byte[] bytes = out.toByteArray();
+        System.arraycopy(bytes, 0, header, 0, bytes.length);
+        originalFilename = "benchmark." + format;
+    }
+
+    @Benchmark
+    public String detect() {
+        return ContentTypeSniffer.detect(header, header.length, originalFilename);
+    }
+
+    private static void write(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+        out.write(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,76 @@
+package com.jie.file.benchmark;
+
+import com.jie.file.utils.DateUtils;
+import com.jie.file.utils.DayStamp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上传时生成日期字符串的开销：每次解析格式、缓存格式、按天缓存结果
+ * 加上 -prof gc 查看每次调用分配的内存
+ *
+ * @author jie
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateFormatBenchmark {
+
+    /**
+     * 原来的做法：每次上传都解析格式
+     */
+    @Benchmark
+    public void ofPatternPerCall(Blackhole bh) {
+        LocalDateTime now = LocalDateTime.now();
+        bh.consume(now.format(DateTimeFormatter.ofPattern(DateUtils.DEFAULT_MONTH_FORMAT_EN)));
+        bh.consume(now.format(DateTimeFormatter.ofPattern(DateUtils.DEFAULT_WEEK_FORMAT_EN)));
+        bh.consume(now.format(DateTimeFormatter.ofPattern(DateUtils.DEFAULT_DATE_FORMAT_EN)));
+        bh.consume(LocalDate.now().format(DateTimeFormatter.ofPattern(DateUtils.DEFAULT_DATE_FORMAT)));
+    }
+
+    @Benchmark
+    public void cachedFormatter(Blackhole bh) {
+        LocalDateTime now = LocalDateTime.now();
+        bh.consume(DateUtils.formatAsYearMonthEn(now));
+        bh.consume(DateUtils.formatAsYearWeekEn(now));
+        bh.consume(DateUtils.formatAsDateEn(now));
+        bh.consume(DateUtils.formatAsDate(now));
+    }
+
+    @Benchmark
+    public void dayStamp(Blackhole bh) {
+        DayStamp today = DayStamp.today();
+        bh.consume(today.getYearMonthEn());
+        bh.consume(today.getYearWeekEn());
+        bh.consume(today.getDateEn());
+        bh.consume(today.getDateDir());
+    }
+
+    @Benchmark
+    public String simpleDateFormatPerCall() {
+        return new SimpleDateFormat(DateUtils.DEFAULT_DATE_TIME_FORMAT).format(new Date());
+    }
+
+    @Benchmark
+    public String simpleDateFormatCached() {
+        return DateUtils.formatAsDateTime(new Date());
+    }
+}
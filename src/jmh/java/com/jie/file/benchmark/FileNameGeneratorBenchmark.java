@@ -0,0 +1,63 @@
+package com.jie.file.benchmark;
+
+import com.jie.file.naming.FileNameGenerator;
+import com.jie.file.naming.RandomUuidFileNameGenerator;
+import com.jie.file.naming.SnowflakeFileNameGenerator;
+import com.jie.file.naming.UlidFileNameGenerator;
+import com.jie.file.naming.UuidV7FileNameGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多线程同时生成文件名的吞吐量
+ *
+ * @author jie
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class FileNameGeneratorBenchmark {
+
+    @Param({"UUID", "UUID_V7", "ULID", "SNOWFLAKE"})
+    public String type;
+
+    private FileNameGenerator generator;
+
+    @Setup
+    public void setup() {
+        switch (type) {
+            case "UUID_V7":
+                generator = new UuidV7FileNameGenerator();
+                break;
+            case "ULID":
+                generator = new UlidFileNameGenerator();
+                break;
+            case "SNOWFLAKE":
+                generator = new SnowflakeFileNameGenerator(1);
+                break;
+            default:
+                generator = new RandomUuidFileNameGenerator();
+        }
+    }
+
+    @Benchmark
+    public String generate() {
+        return generator.generate();
+    }
+}
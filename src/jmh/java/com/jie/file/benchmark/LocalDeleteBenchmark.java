@@ -0,0 +1,81 @@
+package com.jie.file.benchmark;
+
+import com.jie.file.benchmark.support.BenchmarkSupport;
+import com.jie.file.benchmark.support.PathMultipartFile;
+import com.jie.file.entity.DeleteResult;
+import com.jie.file.entity.File;
+import com.jie.file.storage.LocalAutoConfigure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地策略批量删除耗时，按批次大小和删除并发数对比
+ * 每次调用前重新上传要删除的文件
+ *
+ * @author jie
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class LocalDeleteBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int batchSize;
+
+    @Param({"1", "8"})
+    public int deleteParallelism;
+
+    private Path root;
+
+    private LocalAutoConfigure.LocalServiceImpl strategy;
+
+    private PathMultipartFile multipartFile;
+
+    private List<File> files;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        root = Files.createTempDirectory("jie-file-delete-");
+        strategy = BenchmarkSupport.localStrategy(root, local -> local.setDeleteParallelism(deleteParallelism));
+        multipartFile = new PathMultipartFile("delete.txt", "text/plain", BenchmarkSupport.randomBytes(1024));
+    }
+
+    @Setup(Level.Invocation)
+    public void uploadFiles() throws Exception {
+        files = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            files.add(strategy.upload(multipartFile));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        strategy.destroy();
+        BenchmarkSupport.deleteTree(root);
+    }
+
+    @Benchmark
+    public DeleteResult batchDelete() throws Exception {
+        return strategy.batchDeleteFiles(files);
+    }
+}
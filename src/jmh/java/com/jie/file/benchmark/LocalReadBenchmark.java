@@ -0,0 +1,81 @@
+package com.jie.file.benchmark;
+
+import com.jie.file.benchmark.support.BenchmarkSupport;
+import com.jie.file.benchmark.support.PathMultipartFile;
+import com.jie.file.storage.LocalAutoConfigure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地策略读取文件流的吞吐量，对比普通文件流和内存映射读取
+ *
+ * @author jie
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class LocalReadBenchmark {
+
+    @Param({"1024", "65536", "1048576", "16777216"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean mmapRead;
+
+    private Path root;
+
+    private LocalAutoConfigure.LocalServiceImpl strategy;
+
+    private String relativePath;
+
+    private byte[] buffer;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        root = Files.createTempDirectory("jie-file-read-");
+        strategy = BenchmarkSupport.localStrategy(root, local -> {
+            local.setMmapRead(mmapRead);
+            local.setMmapMaxFileSize(32L * 1024 * 1024);
+        });
+        relativePath = strategy.upload(new PathMultipartFile("read.bin", "application/octet-stream",
+                BenchmarkSupport.randomBytes(size))).getRelativePath();
+        buffer = new byte[64 * 1024];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        strategy.destroy();
+        BenchmarkSupport.deleteTree(root);
+    }
+
+    @Benchmark
+    public long getFileInputStream() throws Exception {
+        long total = 0;
+        try (InputStream in = strategy.getFileInputStream(relativePath)) {
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                total += n;
+            }
+        }
+        return total;
+    }
+}
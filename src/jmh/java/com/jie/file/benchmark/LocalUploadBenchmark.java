@@ -0,0 +1,77 @@
+package com.jie.file.benchmark;
+
+import com.jie.file.benchmark.support.BenchmarkSupport;
+import com.jie.file.benchmark.support.PathMultipartFile;
+import com.jie.file.entity.File;
+import com.jie.file.storage.LocalAutoConfigure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地策略上传吞吐量，文件大小从1KB到1GB
+ * 上传的文件在每轮迭代结束后删除
+ *
+ * @author jie
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class LocalUploadBenchmark {
+
+    @Param({"1024", "1048576", "67108864", "1073741824"})
+    public long size;
+
+    /**
+     * 流式写入或整体读入内存后写入，整体写入1GB文件时 getBytes 需要约1GB堆内存，fork的堆设为3GB
+     */
+    @Param({"true", "false"})
+    public boolean streamWrite;
+
+    private Path root;
+
+    private LocalAutoConfigure.LocalServiceImpl strategy;
+
+    private PathMultipartFile multipartFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        root = Files.createTempDirectory("jie-file-upload-");
+        strategy = BenchmarkSupport.localStrategy(root.resolve("storage"), local -> local.setStreamWrite(streamWrite));
+        multipartFile = new PathMultipartFile("upload.bin", "application/octet-stream",
+                BenchmarkSupport.randomFile(root.resolve("source"), size));
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUploaded() throws Exception {
+        BenchmarkSupport.deleteTree(root.resolve("storage").resolve(BenchmarkSupport.BUCKET));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        strategy.destroy();
+        BenchmarkSupport.deleteTree(root);
+    }
+
+    @Benchmark
+    public File upload() throws Exception {
+        return strategy.upload(multipartFile);
+    }
+}
@@ -0,0 +1,124 @@
+package com.jie.file.benchmark;
+
+import com.jie.file.benchmark.support.BenchmarkSupport;
+import com.jie.file.benchmark.support.PathMultipartFile;
+import com.jie.file.benchmark.support.S3StubServer;
+import com.jie.file.entity.DeleteResult;
+import com.jie.file.entity.File;
+import com.jie.file.storage.MinioAutoConfigure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * minio策略的上传、读取和批量删除，连接进程内的S3模拟服务，不需要真实的minio
+ * 结果反映客户端一侧的开销（签名、分片、序列化），不代表真实网络环境下的吞吐量
+ *
+ * @author jie
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class MinioBenchmark {
+
+    @Param({"1024", "1048576", "16777216"})
+    public int size;
+
+    @Param({"1", "4"})
+    public int uploadParallelism;
+
+    private S3StubServer server;
+
+    private MinioAutoConfigure.MinioServiceImpl strategy;
+
+    private PathMultipartFile multipartFile;
+
+    private String relativePath;
+
+    private byte[] buffer;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        server = new S3StubServer();
+        strategy = BenchmarkSupport.minioStrategy(server.getEndpoint(), minio -> {
+            minio.setUploadParallelism(uploadParallelism);
+            minio.setPartSize(5L * 1024 * 1024);
+        });
+        multipartFile = new PathMultipartFile("minio.bin", "application/octet-stream", BenchmarkSupport.randomBytes(size));
+        relativePath = strategy.upload(multipartFile).getRelativePath();
+        buffer = new byte[64 * 1024];
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUploaded() throws Exception {
+        server.clear();
+        relativePath = strategy.upload(multipartFile).getRelativePath();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        strategy.destroy();
+        server.close();
+    }
+
+    @Benchmark
+    public File upload() throws Exception {
+        return strategy.upload(multipartFile);
+    }
+
+    @Benchmark
+    public long getFileInputStream() throws Exception {
+        long total = 0;
+        try (InputStream in = strategy.getFileInputStream(relativePath)) {
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                total += n;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * minio批量删除，每次调用前上传要删除的对象
+     */
+    @State(Scope.Benchmark)
+    public static class DeleteState {
+
+        @Param({"100", "1000", "5000"})
+        public int batchSize;
+
+        private List<String> objectNames;
+
+        @Setup(Level.Invocation)
+        public void uploadObjects(MinioBenchmark benchmark) throws Exception {
+            objectNames = new ArrayList<>(batchSize);
+            PathMultipartFile small = new PathMultipartFile("delete.txt", "text/plain", new byte[16]);
+            for (int i = 0; i < batchSize; i++) {
+                objectNames.add(benchmark.strategy.upload(small).getRelativePath());
+            }
+        }
+    }
+
+    @Benchmark
+    public DeleteResult batchDelete(DeleteState state) throws Exception {
+        return strategy.batchDelete(state.objectNames);
+    }
+}
@@ -0,0 +1,136 @@
+package com.jie.file.benchmark;
+
+import com.jie.file.benchmark.support.PathMultipartFile;
+import com.jie.file.entity.ChunkUpload;
+import com.jie.file.entity.File;
+import com.jie.file.strategy.impl.AbstractFileStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AbstractFileStrategy.upload 中构建文件元数据的开销，存储操作为空实现
+ *
+ * @author jie
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UploadMetadataBenchmark {
+
+    @Param({"avatar.png", "report.pdf", "movie.mp4", "archive.unknownext"})
+    public String originalFilename;
+
+    private final NoopFileStrategy strategy = new NoopFileStrategy();
+
+    private MultipartFile multipartFile;
+
+    @Setup
+    public void setup() {
+        multipartFile = new PathMultipartFile(originalFilename, "application/octet-stream", new byte[0]);
+    }
+
+    @Benchmark
+    public File upload() throws Exception {
+        return strategy.upload(multipartFile);
+    }
+
+    @Benchmark
+    public File buildFile() throws Exception {
+        return strategy.build(originalFilename);
+    }
+
+    /**
+     * 不做任何存储操作的策略，只保留元数据构建
+     */
+    static class NoopFileStrategy extends AbstractFileStrategy {
+
+        File build(String originalFilename) throws Exception {
+            return buildFile(originalFilename, "application/octet-stream", 0, null);
+        }
+
+        @Override
+        public void uploadFile(File file, MultipartFile multipartFile) {
+            file.setFileName("noop." + file.getExt());
+            file.setRelativePath("noop/noop." + file.getExt());
+        }
+
+        @Override
+        protected void initChunkFile(ChunkUpload chunkUpload) {
+        }
+
+        @Override
+        protected void uploadChunkFile(ChunkUpload chunkUpload, int chunkNumber, MultipartFile chunk) {
+        }
+
+        @Override
+        protected List<Integer> listChunkFiles(ChunkUpload chunkUpload) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        protected void mergeChunkFile(ChunkUpload chunkUpload) {
+        }
+
+        @Override
+        protected void abortChunkFile(ChunkUpload chunkUpload) {
+        }
+
+        @Override
+        public boolean delete(String fileName) {
+            return true;
+        }
+
+        @Override
+        public boolean delete(String... fileNames) {
+            return true;
+        }
+
+        @Override
+        public boolean delete(File file) {
+            return true;
+        }
+
+        @Override
+        public boolean delete(List<File> listFile) {
+            return true;
+        }
+
+        @Override
+        public String getFileUrl(String fileName) {
+            return fileName;
+        }
+
+        @Override
+        public InputStream getFileInputStream(String fileName) {
+            return null;
+        }
+
+        @Override
+        public InputStream getFileInputStream(String fileName, long offset, long length) {
+            return null;
+        }
+
+        @Override
+        public boolean fileExists(String fileName) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.jie.file.benchmark.support;
+
+import com.jie.file.properties.FileServerProperties;
+import com.jie.file.storage.LocalAutoConfigure;
+import com.jie.file.storage.MinioAutoConfigure;
+import com.jie.file.strategy.impl.AbstractFileStrategy;
+import io.minio.MinioClient;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * 基准测试公共方法，不启动Spring容器直接创建存储策略
+ *
+ * @author jie
+ */
+public final class BenchmarkSupport {
+
+    public static final String BUCKET = "benchmark";
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 创建本地存储策略
+     *
+     * @param root       存储根目录
+     * @param customizer 修改本地策略配置
+     */
+    public static LocalAutoConfigure.LocalServiceImpl localStrategy(Path root, Consumer<FileServerProperties.Properties> customizer) throws Exception {
+        FileServerProperties.Properties local = new FileServerProperties.Properties();
+        local.setEndpoint(root.toString());
+        local.setUriPrefix("http://127.0.0.1/");
+        local.setBucketName(BUCKET);
+        customizer.accept(local);
+        FileServerProperties fileProperties = new FileServerProperties();
+        fileProperties.setLocal(local);
+        fileProperties.setStoragePath(root.resolve("tmp").toString());
+        LocalAutoConfigure.LocalServiceImpl strategy = new LocalAutoConfigure.LocalServiceImpl();
+        inject(strategy, AbstractFileStrategy.class, "fileProperties", fileProperties);
+        strategy.afterPropertiesSet();
+        return strategy;
+    }
+
+    /**
+     * 创建连接到模拟服务的minio存储策略
+     *
+     * @param endpoint   模拟服务地址
+     * @param customizer 修改minio策略配置
+     */
+    public static MinioAutoConfigure.MinioServiceImpl minioStrategy(String endpoint, Consumer<FileServerProperties.Properties> customizer) throws Exception {
+        FileServerProperties.Properties minio = new FileServerProperties.Properties();
+        minio.setEndpoint(endpoint);
+        minio.setAccessKey("benchmark");
+        minio.setSecretKey("benchmark");
+        minio.setUriPrefix("http://127.0.0.1/");
+        minio.setBucketName(BUCKET);
+        customizer.accept(minio);
+        FileServerProperties fileProperties = new FileServerProperties();
+        fileProperties.setMinio(minio);
+        MinioClient minioClient = MinioClient.builder()
+                .endpoint(endpoint)
+                .region("us-east-1")
+                .credentials(minio.getAccessKey(), minio.getSecretKey())
+                .build();
+        MinioAutoConfigure.MinioServiceImpl strategy = new MinioAutoConfigure.MinioServiceImpl();
+        inject(strategy, AbstractFileStrategy.class, "fileProperties", fileProperties);
+        inject(strategy, MinioAutoConfigure.MinioServiceImpl.class, "minioClient", minioClient);
+        strategy.afterPropertiesSet();
+        return strategy;
+    }
+
+    /**
+     * 生成指定大小的随机内容文件
+     */
+    public static Path randomFile(Path dir, long size) throws IOException {
+        Files.createDirectories(dir);
+        Path file = Files.createTempFile(dir, "bench-", ".bin");
+        byte[] buffer = new byte[(int) Math.min(size, 1024 * 1024)];
+        new Random(size).nextBytes(buffer);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            long remaining = size;
+            while (remaining > 0) {
+                int count = (int) Math.min(remaining, buffer.length);
+                out.write(buffer, 0, count);
+                remaining -= count;
+            }
+        }
+        return file;
+    }
+
+    public static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    public static void deleteTree(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path d, IOException e) throws IOException {
+                Files.delete(d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void inject(Object target, Class<?> type, String name, Object value) {
+        Field field = ReflectionUtils.findField(type, name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
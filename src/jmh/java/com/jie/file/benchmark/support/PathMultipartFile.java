@@ -0,0 +1,89 @@
+package com.jie.file.benchmark.support;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 基准测试用的上传文件，内容来自磁盘文件或内存，大文件不需要全部读入内存
+ *
+ * @author jie
+ */
+public class PathMultipartFile implements MultipartFile {
+
+    private final String originalFilename;
+
+    private final String contentType;
+
+    private final Path path;
+
+    private final byte[] content;
+
+    public PathMultipartFile(String originalFilename, String contentType, Path path) {
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.path = path;
+        this.content = null;
+    }
+
+    public PathMultipartFile(String originalFilename, String contentType, byte[] content) {
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.path = null;
+        this.content = content;
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return getSize() == 0;
+    }
+
+    @Override
+    public long getSize() {
+        try {
+            return content != null ? content.length : Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return content != null ? content : Files.readAllBytes(path);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return content != null ? new ByteArrayInputStream(content) : Files.newInputStream(path);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        if (content != null) {
+            Files.write(dest.toPath(), content);
+        } else {
+            Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
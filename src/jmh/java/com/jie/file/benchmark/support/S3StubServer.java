@@ -0,0 +1,252 @@
+package com.jie.file.benchmark.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 进程内的S3模拟服务，基准测试不依赖真实的minio
+ * 只实现minio策略用到的接口：桶检查、上传（含分片上传）、下载（含Range）、查询对象信息、删除、批量删除，不校验签名
+ *
+ * @author jie
+ */
+public class S3StubServer implements AutoCloseable {
+
+    private static final String XMLNS = "http://s3.amazonaws.com/doc/2006-03-01/";
+
+    private static final Pattern DELETE_KEY = Pattern.compile("<Key>(.*?)</Key>");
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+
+    public S3StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public int getObjectCount() {
+        return objects.size();
+    }
+
+    public void clear() {
+        objects.clear();
+        uploads.clear();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = URLDecoder.decode(exchange.getRequestURI().getRawPath(), "UTF-8").substring(1);
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String method = exchange.getRequestMethod();
+            int slash = path.indexOf('/');
+            if (slash < 0 || slash == path.length() - 1) {
+                handleBucket(exchange, method, slash < 0 ? path : path.substring(0, slash), query);
+            } else {
+                handleObject(exchange, method, path, query);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleBucket(HttpExchange exchange, String method, String bucket, Map<String, String> query) throws IOException {
+        if ("POST".equals(method) && query.containsKey("delete")) {
+            String body = new String(readBody(exchange), StandardCharsets.UTF_8);
+            Matcher matcher = DELETE_KEY.matcher(body);
+            while (matcher.find()) {
+                objects.remove(bucket + "/" + matcher.group(1));
+            }
+            sendXml(exchange, 200, "<DeleteResult xmlns=\"" + XMLNS + "\"></DeleteResult>");
+            return;
+        }
+        // HEAD检查桶、PUT创建桶
+        send(exchange, 200, null);
+    }
+
+    private void handleObject(HttpExchange exchange, String method, String key, Map<String, String> query) throws IOException {
+        switch (method) {
+            case "PUT":
+                byte[] body = readBody(exchange);
+                if (query.containsKey("uploadId")) {
+                    uploads.get(query.get("uploadId")).put(Integer.parseInt(query.get("partNumber")), body);
+                } else {
+                    objects.put(key, body);
+                }
+                exchange.getResponseHeaders().set("ETag", etag(body));
+                send(exchange, 200, null);
+                return;
+            case "POST":
+                if (query.containsKey("uploads")) {
+                    String uploadId = UUID.randomUUID().toString();
+                    uploads.put(uploadId, new TreeMap<>());
+                    sendXml(exchange, 200, "<InitiateMultipartUploadResult xmlns=\"" + XMLNS + "\"><Bucket>"
+                            + bucket(key) + "</Bucket><Key>" + object(key) + "</Key><UploadId>" + uploadId
+                            + "</UploadId></InitiateMultipartUploadResult>");
+                } else {
+                    readBody(exchange);
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    for (byte[] part : uploads.remove(query.get("uploadId")).values()) {
+                        out.write(part);
+                    }
+                    byte[] merged = out.toByteArray();
+                    objects.put(key, merged);
+                    sendXml(exchange, 200, "<CompleteMultipartUploadResult xmlns=\"" + XMLNS + "\"><Location>" + key
+                            + "</Location><Bucket>" + bucket(key) + "</Bucket><Key>" + object(key) + "</Key><ETag>"
+                            + etag(merged) + "</ETag></CompleteMultipartUploadResult>");
+                }
+                return;
+            case "DELETE":
+                if (query.containsKey("uploadId")) {
+                    uploads.remove(query.get("uploadId"));
+                } else {
+                    objects.remove(key);
+                }
+                send(exchange, 204, null);
+                return;
+            case "HEAD":
+            case "GET":
+                byte[] content = objects.get(key);
+                if (content == null) {
+                    sendError(exchange, "HEAD".equals(method), key);
+                    return;
+                }
+                exchange.getResponseHeaders().set("ETag", etag(content));
+                exchange.getResponseHeaders().set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC)));
+                exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+                if ("HEAD".equals(method)) {
+                    exchange.getResponseHeaders().set("Content-Length", String.valueOf(content.length));
+                    exchange.sendResponseHeaders(200, -1);
+                    return;
+                }
+                sendRange(exchange, content);
+                return;
+            default:
+                send(exchange, 405, null);
+        }
+    }
+
+    private void sendRange(HttpExchange exchange, byte[] content) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        int from = 0;
+        int to = content.length - 1;
+        int status = 200;
+        if (range != null) {
+            Matcher matcher = RANGE.matcher(range);
+            if (matcher.matches()) {
+                from = Integer.parseInt(matcher.group(1));
+                if (!matcher.group(2).isEmpty()) {
+                    to = Math.min(Integer.parseInt(matcher.group(2)), to);
+                }
+                status = 206;
+            }
+        }
+        int length = Math.max(to - from + 1, 0);
+        exchange.sendResponseHeaders(status, length == 0 ? -1 : length);
+        if (length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(content, from, length);
+            }
+        }
+    }
+
+    private void sendError(HttpExchange exchange, boolean head, String key) throws IOException {
+        if (head) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        sendXml(exchange, 404, "<Error><Code>NoSuchKey</Code><Message>The specified key does not exist.</Message><Key>"
+                + object(key) + "</Key><BucketName>" + bucket(key) + "</BucketName><Resource>/" + key
+                + "</Resource><RequestId>stub</RequestId><HostId>stub</HostId></Error>");
+    }
+
+    private static void sendXml(HttpExchange exchange, int status, String xml) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        send(exchange, status, xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body == null ? -1 : body.length);
+        if (body != null) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int index = pair.indexOf('=');
+            String name = URLDecoder.decode(index < 0 ? pair : pair.substring(0, index), "UTF-8");
+            String value = index < 0 ? "" : URLDecoder.decode(pair.substring(index + 1), "UTF-8");
+            params.put(name, value);
+        }
+        return params;
+    }
+
+    private static String etag(byte[] content) {
+        return "\"" + Integer.toHexString(Arrays.hashCode(content)) + "-" + content.length + "\"";
+    }
+
+    private static String bucket(String key) {
+        return key.substring(0, key.indexOf('/'));
+    }
+
+    private static String object(String key) {
+        return key.substring(key.indexOf('/') + 1);
+    }
+}
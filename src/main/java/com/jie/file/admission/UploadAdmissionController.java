@@ -0,0 +1,234 @@
+package com.jie.file.admission;
+
+import com.jie.file.exception.UploadRejectedException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 上传准入控制
+ * 按文件大小分为小文件和大文件两个通道，分别限制同时进行的上传数量，大文件另外限制进行中的总字节数，
+ * 大文件占满额度时不影响小文件上传。没有空闲额度时排队等待，超过等待时间抛出 {@link UploadRejectedException}
+ *
+ * @author jie
+ */
+public class UploadAdmissionController {
+
+    private final long smallFileThreshold;
+
+    private final int maxSmallConcurrent;
+
+    private final int maxLargeConcurrent;
+
+    private final long maxInFlightBytes;
+
+    private final long timeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition smallAvailable = lock.newCondition();
+
+    private final Condition largeAvailable = lock.newCondition();
+
+    private int smallActive;
+
+    private int largeActive;
+
+    private long inFlightBytes;
+
+    private int smallWaiting;
+
+    private int largeWaiting;
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * @param smallFileThreshold 小文件大小上限，单位字节
+     * @param maxSmallConcurrent 同时上传的小文件数量上限
+     * @param maxLargeConcurrent 同时上传的大文件数量上限
+     * @param maxInFlightBytes   进行中的大文件总字节数上限
+     * @param timeoutMillis      排队等待时间，单位毫秒，小于等于0时不等待
+     */
+    public UploadAdmissionController(long smallFileThreshold, int maxSmallConcurrent, int maxLargeConcurrent,
+                                     long maxInFlightBytes, long timeoutMillis) {
+        this.smallFileThreshold = smallFileThreshold;
+        this.maxSmallConcurrent = Math.max(maxSmallConcurrent, 1);
+        this.maxLargeConcurrent = Math.max(maxLargeConcurrent, 1);
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(timeoutMillis, 0));
+    }
+
+    /**
+     * 申请上传额度，上传完成后关闭返回的许可释放额度
+     *
+     * @param size 文件大小，未知时传入-1，按大文件处理
+     * @return 上传许可
+     * @throws UploadRejectedException 等待超时或被中断
+     */
+    public Permit acquire(long size) throws UploadRejectedException {
+        boolean small = size >= 0 && size <= smallFileThreshold;
+        long bytes = small ? 0 : Math.max(size, 0);
+        long nanos = timeoutNanos;
+        lock.lock();
+        try {
+            if (small) {
+                smallWaiting++;
+            } else {
+                largeWaiting++;
+            }
+            try {
+                while (!tryAdmit(small, bytes)) {
+                    if (nanos <= 0) {
+                        rejectedCount.increment();
+                        throw new UploadRejectedException("上传繁忙，请稍后重试");
+                    }
+                    nanos = (small ? smallAvailable : largeAvailable).awaitNanos(nanos);
+                }
+            } finally {
+                if (small) {
+                    smallWaiting--;
+                } else {
+                    largeWaiting--;
+                }
+            }
+            return new Permit(small, bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejectedCount.increment();
+            throw new UploadRejectedException("等待上传时被中断");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 在持有锁时判断并占用额度，单个文件超过总字节数上限时只能在没有其他大文件上传时进行
+     */
+    private boolean tryAdmit(boolean small, long bytes) {
+        if (small) {
+            if (smallActive >= maxSmallConcurrent) {
+                return false;
+            }
+            smallActive++;
+            return true;
+        }
+        if (largeActive >= maxLargeConcurrent
+                || (inFlightBytes > 0 && inFlightBytes + bytes > maxInFlightBytes)) {
+            return false;
+        }
+        largeActive++;
+        inFlightBytes += bytes;
+        return true;
+    }
+
+    private void release(boolean small, long bytes) {
+        lock.lock();
+        try {
+            if (small) {
+                smallActive--;
+                smallAvailable.signal();
+            } else {
+                largeActive--;
+                inFlightBytes -= bytes;
+                // 释放的字节数可能满足多个等待中的上传
+                largeAvailable.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 排队等待的小文件上传数
+     */
+    public int getSmallWaiting() {
+        lock.lock();
+        try {
+            return smallWaiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 排队等待的大文件上传数
+     */
+    public int getLargeWaiting() {
+        lock.lock();
+        try {
+            return largeWaiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 进行中的小文件上传数
+     */
+    public int getSmallActive() {
+        lock.lock();
+        try {
+            return smallActive;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 进行中的大文件上传数
+     */
+    public int getLargeActive() {
+        lock.lock();
+        try {
+            return largeActive;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 进行中的大文件总字节数
+     */
+    public long getInFlightBytes() {
+        lock.lock();
+        try {
+            return inFlightBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 被拒绝的上传数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * 上传许可，关闭时释放额度，重复关闭无影响
+     */
+    public class Permit implements AutoCloseable {
+
+        private final boolean small;
+
+        private final long bytes;
+
+        private boolean released;
+
+        private Permit(boolean small, long bytes) {
+            this.small = small;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!released) {
+                released = true;
+                release(small, bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package com.jie.file.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地磁盘文件缓存
+ * 远程存储的文件在第一次读取时边读边写入本地目录，之后直接从本地磁盘读取。
+ * 按文件大小限制缓存目录的总大小，超出时删除最久未使用的文件，
+ * 命中时更新文件的修改时间，重启后按修改时间重建缓存索引
+ * <pre>
+ * {path}/{文件名称}    缓存的文件，目录结构与文件名称一致
+ * {path}/.tmp/         正在写入的临时文件，启动时清空
+ * </pre>
+ *
+ * @author jie
+ */
+@Slf4j
+public class DiskFileCache {
+
+    private static final String TMP_DIR = ".tmp";
+
+    private final Path root;
+
+    private final Path tmpPath;
+
+    private final long maxSize;
+
+    private long totalSize;
+
+    /**
+     * 删除文件时递增，写入过程中发生过删除的文件不放入缓存，避免缓存已删除文件的旧内容
+     */
+    private long invalidateCount;
+
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    public DiskFileCache(String path, long maxSize) {
+        this.root = Paths.get(path).toAbsolutePath().normalize();
+        this.tmpPath = root.resolve(TMP_DIR);
+        this.maxSize = maxSize;
+        load();
+        log.info("=========================磁盘文件缓存目录：{}，已缓存{}个文件，共{}字节", root, entries.size(), totalSize);
+    }
+
+    /**
+     * 扫描缓存目录重建索引，按修改时间从旧到新加入，超出总大小的旧文件直接删除
+     */
+    private void load() {
+        try {
+            if (Files.exists(tmpPath)) {
+                deleteTree(tmpPath);
+            }
+            Files.createDirectories(tmpPath);
+            List<Path> files = new ArrayList<>();
+            Map<Path, BasicFileAttributes> attributes = new LinkedHashMap<>();
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    return dir.equals(tmpPath) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    files.add(file);
+                    attributes.put(file, attrs);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            files.sort(Comparator.comparing(file -> attributes.get(file).lastModifiedTime()));
+            List<Path> evicted;
+            synchronized (this) {
+                for (Path file : files) {
+                    long size = attributes.get(file).size();
+                    entries.put(toKey(file), size);
+                    totalSize += size;
+                }
+                evicted = evict();
+            }
+            deleteAll(evicted);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 获取缓存的文件
+     *
+     * @param fileName 文件名称
+     * @return 本地文件路径，未缓存时返回null
+     */
+    public Path get(String fileName) {
+        Path path = resolve(fileName);
+        boolean cached;
+        synchronized (this) {
+            cached = path != null && entries.get(toKey(path)) != null;
+        }
+        if (!cached) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        try {
+            // 记录访问时间，重启后据此恢复淘汰顺序
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // 文件已被淘汰
+            log.debug("更新缓存文件访问时间失败：{}", path);
+        }
+        return path;
+    }
+
+    /**
+     * 包装远程文件流，读取的同时写入临时文件，读到末尾后放入缓存；
+     * 未读完就关闭、写入失败或超过缓存总大小时不做缓存
+     *
+     * @param fileName 文件名称
+     * @param in       远程文件流
+     * @return 包装后的文件流
+     */
+    public InputStream cacheOnRead(String fileName, InputStream in) {
+        if (resolve(fileName) == null) {
+            return in;
+        }
+        long startCount;
+        synchronized (this) {
+            startCount = invalidateCount;
+        }
+        try {
+            Path tmp = tmpPath.resolve(UUID.randomUUID().toString());
+            return new CachingInputStream(in, fileName, tmp, new BufferedOutputStream(Files.newOutputStream(tmp)), startCount);
+        } catch (IOException e) {
+            log.warn("创建缓存临时文件失败，不做缓存：{}", e.toString());
+            return in;
+        }
+    }
+
+    /**
+     * 文件被删除时移除缓存
+     *
+     * @param fileName 文件名称
+     */
+    public void invalidate(String fileName) {
+        Path path = resolve(fileName);
+        if (path == null) {
+            return;
+        }
+        synchronized (this) {
+            invalidateCount++;
+            Long size = entries.remove(toKey(path));
+            if (size != null) {
+                totalSize -= size;
+            }
+        }
+        deleteQuietly(path);
+    }
+
+    /**
+     * 当前缓存的总字节数
+     */
+    public synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * 当前缓存的文件数
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 因超出总大小被删除的文件数
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 命中率，没有读取时返回0
+     */
+    public double getHitRate() {
+        long hit = hitCount.sum();
+        long total = hit + missCount.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * 将写完的临时文件移动到缓存目录
+     */
+    private void commit(String fileName, Path tmp, long size, long startCount) {
+        Path path = resolve(fileName);
+        List<Path> evicted;
+        synchronized (this) {
+            if (startCount != invalidateCount || size > maxSize) {
+                deleteQuietly(tmp);
+                return;
+            }
+            try {
+                Files.createDirectories(path.getParent());
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                log.warn("写入缓存文件失败：{}", e.toString());
+                deleteQuietly(tmp);
+                return;
+            }
+            Long old = entries.put(toKey(path), size);
+            if (old != null) {
+                totalSize -= old;
+            }
+            totalSize += size;
+            evicted = evict();
+        }
+        deleteAll(evicted);
+    }
+
+    /**
+     * 淘汰最久未使用的文件，返回需要删除的文件
+     */
+    private List<Path> evict() {
+        List<Path> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalSize > maxSize && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            iterator.remove();
+            totalSize -= entry.getValue();
+            evictionCount.increment();
+            evicted.add(root.resolve(entry.getKey()));
+        }
+        return evicted;
+    }
+
+    /**
+     * 文件名称对应的缓存路径，文件名称超出缓存目录时返回null
+     */
+    private Path resolve(String fileName) {
+        if (fileName == null || fileName.isEmpty()) {
+            return null;
+        }
+        Path path = root.resolve(fileName).normalize();
+        return path.startsWith(root) && !path.startsWith(tmpPath) && !path.equals(root) ? path : null;
+    }
+
+    private String toKey(Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    private static void deleteAll(List<Path> paths) {
+        for (Path path : paths) {
+            deleteQuietly(path);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("删除缓存文件失败：{}", path);
+        }
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path d, IOException e) throws IOException {
+                Files.delete(d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 边读边写入临时文件的文件流
+     */
+    private class CachingInputStream extends FilterInputStream {
+
+        private final String fileName;
+
+        private final Path tmp;
+
+        private final long startCount;
+
+        private OutputStream out;
+
+        private long size;
+
+        private CachingInputStream(InputStream in, String fileName, Path tmp, OutputStream out, long startCount) {
+            super(in);
+            this.fileName = fileName;
+            this.tmp = tmp;
+            this.out = out;
+            this.startCount = startCount;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                complete();
+            } else if (out != null) {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count = super.read(b, off, len);
+            if (count < 0) {
+                complete();
+            } else if (count > 0 && out != null) {
+                write(b, off, count);
+            }
+            return count;
+        }
+
+        /**
+         * 跳过的内容无法写入缓存，放弃缓存
+         */
+        @Override
+        public long skip(long n) throws IOException {
+            abandon();
+            return super.skip(n);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                abandon();
+            }
+        }
+
+        private void write(byte[] b, int off, int len) {
+            size += len;
+            if (size > maxSize) {
+                abandon();
+                return;
+            }
+            try {
+                out.write(b, off, len);
+            } catch (IOException e) {
+                log.warn("写入缓存临时文件失败，不做缓存：{}", e.toString());
+                abandon();
+            }
+        }
+
+        private void complete() {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.close();
+            } catch (IOException e) {
+                abandon();
+                return;
+            }
+            out = null;
+            commit(fileName, tmp, size, startCount);
+        }
+
+        private void abandon() {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.close();
+            } catch (IOException e) {
+                // 临时文件随后删除
+            }
+            out = null;
+            deleteQuietly(tmp);
+        }
+    }
+}
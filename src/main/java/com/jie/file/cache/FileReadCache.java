@@ -0,0 +1,215 @@
+package com.jie.file.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 文件内容缓存
+ * 以文件名称为键缓存小文件的内容，按缓存字节数限制总大小，超出时淘汰最久未使用的文件，过期的文件在读取时移除
+ * 文件名称按哈希分段记录版本号，移除缓存时版本号加一；读取文件前取得版本号，读完后版本号未变才放入缓存，
+ * 避免删除前打开的读取在删除后把内容放回缓存
+ *
+ * @author jie
+ */
+public class FileReadCache {
+
+    /**
+     * 版本号分段数，2的幂
+     */
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final long maxSize;
+
+    private final long maxEntrySize;
+
+    private final long ttlNanos;
+
+    private long totalSize;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 各分段的版本号，只在持有锁时增加
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * @param maxSize      缓存总大小上限，单位字节
+     * @param maxEntrySize 单个文件大小上限，单位字节
+     * @param ttlSeconds   缓存有效期，单位秒，小于等于0时不过期
+     */
+    public FileReadCache(long maxSize, long maxEntrySize, long ttlSeconds) {
+        this.maxSize = maxSize;
+        this.maxEntrySize = Math.min(maxEntrySize, maxSize);
+        this.ttlNanos = ttlSeconds > 0 ? TimeUnit.SECONDS.toNanos(ttlSeconds) : 0;
+    }
+
+    /**
+     * 获取缓存的文件内容
+     *
+     * @param fileName 文件名称
+     * @return 文件内容，未缓存或已过期时返回null，调用方不能修改返回的数组
+     */
+    public byte[] get(String fileName) {
+        synchronized (this) {
+            Entry entry = entries.get(fileName);
+            if (entry != null) {
+                if (!entry.isExpired(System.nanoTime())) {
+                    hitCount.increment();
+                    return entry.content;
+                }
+                entries.remove(fileName);
+                totalSize -= entry.content.length;
+            }
+        }
+        missCount.increment();
+        return null;
+    }
+
+    /**
+     * 获取文件名称当前的版本号，在读取文件之前调用，读完后传给 {@link #put(String, byte[], long)}
+     *
+     * @param fileName 文件名称
+     * @return 版本号
+     */
+    public long generation(String fileName) {
+        return generations.get(stripe(fileName));
+    }
+
+    /**
+     * 缓存文件内容，超过单个文件大小上限时不缓存
+     *
+     * @param fileName 文件名称
+     * @param content  文件内容，缓存后不能再修改
+     */
+    public void put(String fileName, byte[] content) {
+        put(fileName, content, -1);
+    }
+
+    /**
+     * 版本号未变时缓存文件内容，读取期间文件被删除（缓存被移除）时不缓存
+     *
+     * @param fileName   文件名称
+     * @param content    文件内容，缓存后不能再修改
+     * @param generation 读取文件之前通过 {@link #generation(String)} 取得的版本号，小于0时不检查
+     * @return 是否放入缓存
+     */
+    public boolean put(String fileName, byte[] content, long generation) {
+        if (content.length > maxEntrySize) {
+            return false;
+        }
+        Entry entry = new Entry(content, ttlNanos > 0 ? System.nanoTime() + ttlNanos : 0);
+        synchronized (this) {
+            if (generation >= 0 && generations.get(stripe(fileName)) != generation) {
+                return false;
+            }
+            Entry old = entries.put(fileName, entry);
+            if (old != null) {
+                totalSize -= old.content.length;
+            }
+            totalSize += content.length;
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (totalSize > maxSize && iterator.hasNext()) {
+                totalSize -= iterator.next().getValue().content.length;
+                iterator.remove();
+                evictionCount.increment();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 文件被删除时移除缓存
+     *
+     * @param fileName 文件名称
+     */
+    public synchronized void invalidate(String fileName) {
+        generations.incrementAndGet(stripe(fileName));
+        Entry entry = entries.remove(fileName);
+        if (entry != null) {
+            totalSize -= entry.content.length;
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void invalidateAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        entries.clear();
+        totalSize = 0;
+    }
+
+    public long getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * 当前缓存的总字节数
+     */
+    public synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * 当前缓存的文件数
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 因超出总大小被淘汰的文件数，不包括过期和主动移除的文件
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 命中率，没有读取时返回0
+     */
+    public double getHitRate() {
+        long hit = hitCount.sum();
+        long total = hit + missCount.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    private static int stripe(String fileName) {
+        int h = fileName.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private static class Entry {
+        private final byte[] content;
+        private final long expireAt;
+
+        private Entry(byte[] content, long expireAt) {
+            this.content = content;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired(long now) {
+            return expireAt != 0 && now - expireAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.jie.file.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内存映射文件缓存
+ * 小文件映射为MappedByteBuffer后缓存，重复读取时不再打开文件。
+ * 按映射字节数限制总大小，超出时淘汰最久未使用的映射，映射在没有读取中的流时才会解除
+ *
+ * @author jie
+ */
+@Slf4j
+public class MappedFileCache {
+
+    private final long maxFileSize;
+
+    private final long maxTotalSize;
+
+    private long totalSize;
+
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public MappedFileCache(long maxFileSize, long maxTotalSize) {
+        this.maxFileSize = maxFileSize;
+        this.maxTotalSize = maxTotalSize;
+    }
+
+    /**
+     * 打开文件流
+     *
+     * @param path 文件路径
+     * @return 文件流，文件超过映射大小上限时返回null
+     */
+    public InputStream open(Path path) throws IOException {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(path);
+            if (entry != null) {
+                entry.refCount++;
+                return new MappedInputStream(entry);
+            }
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > maxFileSize) {
+                return null;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        List<Entry> evicted;
+        synchronized (this) {
+            Entry exist = entries.get(path);
+            if (exist != null) {
+                // 其他线程已完成映射
+                exist.refCount++;
+                unmap(buffer);
+                return new MappedInputStream(exist);
+            }
+            entry = new Entry(buffer);
+            entry.refCount++;
+            entries.put(path, entry);
+            totalSize += entry.size;
+            evicted = evict();
+        }
+        unmapAll(evicted);
+        return new MappedInputStream(entry);
+    }
+
+    /**
+     * 文件被删除或修改时移除映射
+     *
+     * @param path 文件路径
+     */
+    public void invalidate(Path path) {
+        List<Entry> removed = new ArrayList<>(1);
+        synchronized (this) {
+            Entry entry = entries.remove(path);
+            if (entry != null) {
+                totalSize -= entry.size;
+                entry.evicted = true;
+                if (entry.refCount == 0) {
+                    removed.add(entry);
+                }
+            }
+        }
+        unmapAll(removed);
+    }
+
+    /**
+     * 当前映射的总字节数
+     */
+    public synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * 淘汰最久未使用的映射，返回可以立即解除映射的项
+     */
+    private List<Entry> evict() {
+        List<Entry> unmapped = new ArrayList<>();
+        Iterator<Map.Entry<Path, Entry>> iterator = entries.entrySet().iterator();
+        while (totalSize > maxTotalSize && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            iterator.remove();
+            totalSize -= entry.size;
+            entry.evicted = true;
+            if (entry.refCount == 0) {
+                unmapped.add(entry);
+            }
+        }
+        return unmapped;
+    }
+
+    private void release(Entry entry) {
+        boolean unmap;
+        synchronized (this) {
+            unmap = --entry.refCount == 0 && entry.evicted;
+        }
+        if (unmap) {
+            unmap(entry.buffer);
+        }
+    }
+
+    private static void unmapAll(List<Entry> entries) {
+        for (Entry entry : entries) {
+            unmap(entry.buffer);
+        }
+    }
+
+    /**
+     * 解除映射，JDK9及以上使用Unsafe.invokeCleaner，JDK8使用DirectBuffer.cleaner
+     * 解除失败时等待GC回收
+     */
+    private static void unmap(ByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            try {
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            } catch (NoSuchMethodException e) {
+                Method cleaner = buffer.getClass().getMethod("cleaner");
+                cleaner.setAccessible(true);
+                Object clean = cleaner.invoke(buffer);
+                if (clean != null) {
+                    clean.getClass().getMethod("clean").invoke(clean);
+                }
+            }
+        } catch (Exception e) {
+            log.debug("解除文件映射失败，等待GC回收", e);
+        }
+    }
+
+    private static class Entry {
+        private final MappedByteBuffer buffer;
+        private final long size;
+        private int refCount;
+        private boolean evicted;
+
+        private Entry(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+            this.size = buffer.capacity();
+        }
+    }
+
+    /**
+     * 读取映射缓冲区的文件流，关闭时释放引用
+     */
+    private class MappedInputStream extends InputStream {
+
+        private final Entry entry;
+
+        private final ByteBuffer buffer;
+
+        private boolean closed;
+
+        private MappedInputStream(Entry entry) {
+            this.entry = entry;
+            this.buffer = entry.buffer.duplicate();
+        }
+
+        @Override
+        public int read() throws IOException {
+            ensureOpen();
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            ensureOpen();
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            ensureOpen();
+            int count = (int) Math.max(Math.min(n, buffer.remaining()), 0);
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            ensureOpen();
+            return buffer.remaining();
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                release(entry);
+            }
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+        }
+    }
+}
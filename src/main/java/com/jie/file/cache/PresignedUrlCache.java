@@ -0,0 +1,99 @@
+package com.jie.file.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 预签名地址缓存
+ * 以文件名称为键缓存签名后的访问地址，缓存有效期短于签名有效期，返回的地址至少还有一段可用时间。
+ * 超过容量时淘汰最久未使用的地址
+ *
+ * @author jie
+ */
+public class PresignedUrlCache {
+
+    private final int maxEntries;
+
+    private final long ttlNanos;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LinkedHashMap<String, CachedUrl> entries;
+
+    /**
+     * @param maxEntries 最多缓存的地址数
+     * @param ttlSeconds 缓存有效期，单位秒
+     */
+    public PresignedUrlCache(int maxEntries, long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LinkedHashMap<String, CachedUrl>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUrl> eldest) {
+                return size() > PresignedUrlCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存的地址
+     *
+     * @param fileName 文件名称
+     * @return 访问地址，未缓存或已过期时返回null
+     */
+    public String get(String fileName) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            CachedUrl entry = entries.get(fileName);
+            if (entry != null) {
+                if (now - entry.expireAt < 0) {
+                    hitCount.increment();
+                    return entry.url;
+                }
+                entries.remove(fileName);
+            }
+        }
+        missCount.increment();
+        return null;
+    }
+
+    public void put(String fileName, String url) {
+        CachedUrl entry = new CachedUrl(url, System.nanoTime() + ttlNanos);
+        synchronized (this) {
+            entries.put(fileName, entry);
+        }
+    }
+
+    public synchronized void invalidate(String fileName) {
+        entries.remove(fileName);
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    private static class CachedUrl {
+        private final String url;
+        private final long expireAt;
+
+        private CachedUrl(String url, long expireAt) {
+            this.url = url;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.jie.file.config;
+
+import com.jie.file.admission.UploadAdmissionController;
+import com.jie.file.properties.FileServerProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 上传准入控制配置类
+ *
+ * @author jie
+ */
+@Configuration
+@EnableConfigurationProperties(FileServerProperties.class)
+@ConditionalOnProperty(value = "jie.file.admission.enabled", havingValue = "true")
+public class AdmissionAutoConfigure {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public UploadAdmissionController uploadAdmissionController(FileServerProperties fileProperties) {
+        FileServerProperties.Admission admission = fileProperties.getAdmission();
+        return new UploadAdmissionController(admission.getSmallFileThreshold(), admission.getMaxSmallConcurrent(),
+                admission.getMaxLargeConcurrent(), admission.getMaxInFlightBytes(), admission.getTimeoutMillis());
+    }
+}
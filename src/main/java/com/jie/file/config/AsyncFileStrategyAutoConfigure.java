@@ -0,0 +1,68 @@
+package com.jie.file.config;
+
+import com.jie.file.properties.FileServerProperties;
+import com.jie.file.storage.AliOssAutoConfigure;
+import com.jie.file.storage.LocalAutoConfigure;
+import com.jie.file.storage.MinioAutoConfigure;
+import com.jie.file.strategy.AsyncFileStrategy;
+import com.jie.file.strategy.FileStrategy;
+import com.jie.file.strategy.impl.DefaultAsyncFileStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步文件操作配置类
+ * 为已注册的文件存储策略自动创建异步版本
+ *
+ * @author jie
+ */
+@Configuration
+@Slf4j
+@EnableConfigurationProperties(FileServerProperties.class)
+@AutoConfigureAfter({LocalAutoConfigure.class, MinioAutoConfigure.class, AliOssAutoConfigure.class})
+@ConditionalOnBean(FileStrategy.class)
+@ConditionalOnProperty(value = "jie.file.async.enabled", havingValue = "true", matchIfMissing = true)
+public class AsyncFileStrategyAutoConfigure {
+
+    public static final String EXECUTOR_NAME = "fileStrategyExecutor";
+
+    @Bean(name = EXECUTOR_NAME, destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = EXECUTOR_NAME)
+    public ExecutorService fileStrategyExecutor(FileServerProperties fileProperties) {
+        FileServerProperties.Async async = fileProperties.getAsync();
+        if (Boolean.TRUE.equals(async.getVirtualThreads())) {
+            try {
+                ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                log.info("=========================异步文件操作使用虚拟线程！");
+                return executor;
+            } catch (Exception e) {
+                log.warn("当前JDK不支持虚拟线程，使用普通线程池！");
+            }
+        }
+        return new ThreadPoolExecutor(async.getCorePoolSize(), async.getMaxPoolSize(),
+                async.getKeepAliveSeconds(), TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(async.getQueueCapacity()),
+                new CustomizableThreadFactory(async.getThreadNamePrefix()));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public AsyncFileStrategy asyncFileStrategy(FileStrategy fileStrategy,
+                                               @Qualifier(EXECUTOR_NAME) ExecutorService fileStrategyExecutor) {
+        return new DefaultAsyncFileStrategy(fileStrategy, fileStrategyExecutor);
+    }
+}
@@ -0,0 +1,43 @@
+package com.jie.file.config;
+
+import com.jie.file.dedup.FileDedupIndex;
+import com.jie.file.dedup.LocalFileDedupIndex;
+import com.jie.file.dedup.MemoryFileDedupIndex;
+import com.jie.file.enumeration.DedupIndexType;
+import com.jie.file.properties.FileServerProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * 文件去重配置类
+ *
+ * @author jie
+ */
+@Configuration
+@EnableConfigurationProperties(FileServerProperties.class)
+@ConditionalOnProperty(value = "jie.file.dedup.enabled", havingValue = "true")
+public class DedupAutoConfigure {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public FileDedupIndex fileDedupIndex(FileServerProperties fileProperties) {
+        FileServerProperties.Dedup dedup = fileProperties.getDedup();
+        if (dedup.getType() == DedupIndexType.MEMORY) {
+            return new MemoryFileDedupIndex();
+        }
+        String path = dedup.getPath();
+        if (path == null || "".equals(path)) {
+            if (fileProperties.getStoragePath() != null && !"".equals(fileProperties.getStoragePath())) {
+                path = Paths.get(fileProperties.getStoragePath(), "dedup").toString();
+            } else {
+                path = Paths.get(System.getProperty("user.home"), ".jie-file", "dedup").toString();
+            }
+        }
+        return new LocalFileDedupIndex(path);
+    }
+}
@@ -0,0 +1,110 @@
+package com.jie.file.config;
+
+import com.jie.file.admission.UploadAdmissionController;
+import com.jie.file.cache.FileReadCache;
+import com.jie.file.properties.FileServerProperties;
+import com.jie.file.strategy.FileStrategy;
+import com.jie.file.strategy.impl.MeteredFileStrategy;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * 文件操作监控指标配置类
+ * 配置 jie.file.metrics.enabled=true 且存在MeterRegistry时，将已注册的文件存储策略包装为 {@link MeteredFileStrategy}，
+ * 并注册内容缓存、上传准入控制的指标
+ * 包装后容器中的文件存储策略不再是具体的实现类，需要使用实现类方法时通过 {@link MeteredFileStrategy#getFileStrategy()} 获取
+ *
+ * @author jie
+ */
+@Configuration
+@EnableConfigurationProperties(FileServerProperties.class)
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnProperty(value = "jie.file.metrics.enabled", havingValue = "true")
+public class FileMetricsAutoConfigure {
+
+    /**
+     * 包装文件存储策略的顺序，在内容缓存之后执行，监控指标在最外层
+     */
+    public static final int POST_PROCESSOR_ORDER = ReadCacheAutoConfigure.POST_PROCESSOR_ORDER + 10;
+
+    @Bean
+    public static BeanPostProcessor meteredFileStrategyPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                                                     ObjectProvider<FileServerProperties> fileProperties) {
+        return new MeteredFileStrategyPostProcessor(meterRegistry, fileProperties);
+    }
+
+    @Bean
+    public MeterBinder fileComponentMetrics(ObjectProvider<FileReadCache> fileReadCache,
+                                            ObjectProvider<UploadAdmissionController> admissionController) {
+        return registry -> {
+            fileReadCache.ifAvailable(cache -> bindReadCache(registry, cache));
+            admissionController.ifAvailable(controller -> bindAdmission(registry, controller));
+        };
+    }
+
+    private static void bindReadCache(MeterRegistry registry, FileReadCache cache) {
+        FunctionCounter.builder("jie.file.read.cache.requests", cache, FileReadCache::getHitCount)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("jie.file.read.cache.requests", cache, FileReadCache::getMissCount)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("jie.file.read.cache.evictions", cache, FileReadCache::getEvictionCount)
+                .register(registry);
+        Gauge.builder("jie.file.read.cache.size", cache, FileReadCache::getTotalSize)
+                .baseUnit("bytes").register(registry);
+    }
+
+    private static void bindAdmission(MeterRegistry registry, UploadAdmissionController controller) {
+        Gauge.builder("jie.file.admission.waiting", controller, UploadAdmissionController::getSmallWaiting)
+                .tag("lane", "small").register(registry);
+        Gauge.builder("jie.file.admission.waiting", controller, UploadAdmissionController::getLargeWaiting)
+                .tag("lane", "large").register(registry);
+        Gauge.builder("jie.file.admission.active", controller, UploadAdmissionController::getSmallActive)
+                .tag("lane", "small").register(registry);
+        Gauge.builder("jie.file.admission.active", controller, UploadAdmissionController::getLargeActive)
+                .tag("lane", "large").register(registry);
+        Gauge.builder("jie.file.admission.in.flight", controller, UploadAdmissionController::getInFlightBytes)
+                .baseUnit("bytes").register(registry);
+        FunctionCounter.builder("jie.file.admission.rejected", controller, UploadAdmissionController::getRejectedCount)
+                .register(registry);
+    }
+
+    private static class MeteredFileStrategyPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+
+        private final ObjectProvider<FileServerProperties> fileProperties;
+
+        private MeteredFileStrategyPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                                 ObjectProvider<FileServerProperties> fileProperties) {
+            this.meterRegistry = meterRegistry;
+            this.fileProperties = fileProperties;
+        }
+
+        @Override
+        public int getOrder() {
+            return POST_PROCESSOR_ORDER;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof FileStrategy) || bean instanceof MeteredFileStrategy) {
+                return bean;
+            }
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry == null) {
+                return bean;
+            }
+            return new MeteredFileStrategy((FileStrategy) bean, registry, fileProperties.getObject().getType());
+        }
+    }
+}
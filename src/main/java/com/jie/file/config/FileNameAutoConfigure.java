@@ -0,0 +1,60 @@
+package com.jie.file.config;
+
+import com.jie.file.naming.FileNameGenerator;
+import com.jie.file.naming.RandomUuidFileNameGenerator;
+import com.jie.file.naming.SnowflakeFileNameGenerator;
+import com.jie.file.naming.UlidFileNameGenerator;
+import com.jie.file.naming.UuidV7FileNameGenerator;
+import com.jie.file.properties.FileServerProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+
+/**
+ * 文件名生成配置类，自定义 {@link FileNameGenerator} 的bean时使用自定义的生成器
+ *
+ * @author jie
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(FileServerProperties.class)
+public class FileNameAutoConfigure {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public FileNameGenerator fileNameGenerator(FileServerProperties fileProperties) {
+        FileServerProperties.FileName fileName = fileProperties.getFileName();
+        switch (fileName.getType()) {
+            case UUID:
+                return new RandomUuidFileNameGenerator();
+            case ULID:
+                return new UlidFileNameGenerator();
+            case SNOWFLAKE:
+                long workerId = fileName.getWorkerId() != null ? fileName.getWorkerId() : defaultWorkerId();
+                log.info("=========================雪花算法文件名workerId：{}", workerId);
+                return new SnowflakeFileNameGenerator(workerId);
+            case UUID_V7:
+            default:
+                return new UuidV7FileNameGenerator();
+        }
+    }
+
+    /**
+     * 根据主机名和进程号计算workerId，不能保证集群内不重复
+     */
+    private static long defaultWorkerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "";
+        }
+        String id = host + "@" + ManagementFactory.getRuntimeMXBean().getName();
+        return (id.hashCode() & 0x7FFFFFFF) % (SnowflakeFileNameGenerator.MAX_WORKER_ID + 1);
+    }
+}
@@ -0,0 +1,34 @@
+package com.jie.file.config;
+
+import com.jie.file.properties.FileServerProperties;
+import com.jie.file.utils.FileDataTypeUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 文件类型识别配置类
+ * 启动时将自定义的后缀图标和mime前缀映射加载到 {@link FileDataTypeUtil}
+ *
+ * @author jie
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(FileServerProperties.class)
+public class FileTypeAutoConfigure implements InitializingBean {
+
+    @Autowired
+    private FileServerProperties fileProperties;
+
+    @Override
+    public void afterPropertiesSet() {
+        FileServerProperties.FileType fileType = fileProperties.getFileType();
+        fileType.getIcons().forEach(FileDataTypeUtil::registerIcon);
+        fileType.getDataTypes().forEach(FileDataTypeUtil::registerDataType);
+        if (!fileType.getIcons().isEmpty() || !fileType.getDataTypes().isEmpty()) {
+            log.info("=========================加载自定义文件类型：图标{}个，mime前缀{}个", fileType.getIcons().size(), fileType.getDataTypes().size());
+        }
+    }
+}
@@ -3,10 +3,18 @@ package com.jie.file.config;
 import com.jie.file.properties.FileServerProperties;
 import io.minio.MinioClient;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.CollectionUtils;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @ConditionalOnProperty(value = "jie.file.type", havingValue = "MINIO")
@@ -16,6 +24,11 @@ public class MinioConfig {
     @Autowired
     protected FileServerProperties fileProperties;
 
+    /**
+     * 多节点负载均衡，配置了多个节点时创建
+     */
+    private MinioEndpointBalancer endpointBalancer;
+
     @Bean
     public MinioClient minioClient(){
         if (fileProperties == null) {
@@ -24,6 +37,41 @@ public class MinioConfig {
         return MinioClient.builder()
                 .endpoint(fileProperties.getMinio().getEndpoint())
                 .credentials(fileProperties.getMinio().getAccessKey(), fileProperties.getMinio().getSecretKey())
+                .httpClient(httpClient(fileProperties.getMinio().getHttp(), fileProperties.getMinio().getCluster()))
+                .build();
+    }
+
+    public MinioEndpointBalancer getEndpointBalancer() {
+        return endpointBalancer;
+    }
+
+    /**
+     * 按配置创建http客户端，替换minio默认的连接池和超时时间
+     * minio的同步请求不经过Dispatcher，maxRequests和maxRequestsPerHost只限制异步请求
+     *
+     * @param http    http连接配置
+     * @param cluster 多节点配置
+     * @return http客户端
+     */
+    protected OkHttpClient httpClient(FileServerProperties.Http http, FileServerProperties.Cluster cluster) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(http.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(http.getMaxRequestsPerHost());
+        log.info("=========================Minio连接池：最大空闲连接{}，连接超时{}秒，读取超时{}秒",
+                http.getMaxIdleConnections(), http.getConnectTimeoutSeconds(), http.getReadTimeoutSeconds());
+        OkHttpClient.Builder builder = new OkHttpClient.Builder();
+        if (!CollectionUtils.isEmpty(cluster.getEndpoints())) {
+            endpointBalancer = new MinioEndpointBalancer(cluster.getEndpoints(), cluster.getLoadBalance(),
+                    cluster.getFailureThreshold(), cluster.getCircuitOpenSeconds());
+            builder.addInterceptor(endpointBalancer);
+        }
+        return builder
+                .connectionPool(new ConnectionPool(http.getMaxIdleConnections(), http.getKeepAliveSeconds(), TimeUnit.SECONDS))
+                .dispatcher(dispatcher)
+                .connectTimeout(http.getConnectTimeoutSeconds(), TimeUnit.SECONDS)
+                .readTimeout(http.getReadTimeoutSeconds(), TimeUnit.SECONDS)
+                .writeTimeout(http.getWriteTimeoutSeconds(), TimeUnit.SECONDS)
+                .protocols(Collections.singletonList(Protocol.HTTP_1_1))
                 .build();
     }
 
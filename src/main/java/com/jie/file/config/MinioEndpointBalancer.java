@@ -0,0 +1,225 @@
+package com.jie.file.config;
+
+import com.jie.file.enumeration.LoadBalanceType;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * minio多节点负载均衡
+ * 作为http客户端的拦截器，将请求的地址替换为选中的节点，Host请求头保持不变，签名不受影响。
+ * 根据请求结果被动检查节点健康状态，连续失败的节点熔断一段时间，到期后放行一个请求试探是否恢复。
+ * 连接失败的请求和幂等请求失败时换一个节点重试
+ *
+ * @author jie
+ */
+@Slf4j
+public class MinioEndpointBalancer implements Interceptor {
+
+    @Getter
+    private final List<Endpoint> endpoints;
+
+    private final LoadBalanceType loadBalance;
+
+    private final int failureThreshold;
+
+    private final long circuitOpenNanos;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public MinioEndpointBalancer(List<String> endpoints, LoadBalanceType loadBalance, int failureThreshold, int circuitOpenSeconds) {
+        List<Endpoint> list = new ArrayList<>(endpoints.size());
+        for (String endpoint : endpoints) {
+            HttpUrl url = HttpUrl.parse(endpoint);
+            if (url == null) {
+                throw new IllegalArgumentException("minio节点地址格式错误：" + endpoint);
+            }
+            list.add(new Endpoint(url));
+        }
+        if (list.isEmpty()) {
+            throw new IllegalArgumentException("minio节点地址为空");
+        }
+        this.endpoints = Collections.unmodifiableList(list);
+        this.loadBalance = loadBalance;
+        this.failureThreshold = Math.max(failureThreshold, 1);
+        this.circuitOpenNanos = TimeUnit.SECONDS.toNanos(circuitOpenSeconds);
+        log.info("=========================Minio多节点：{}，负载均衡方式：{}", endpoints, loadBalance);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        boolean idempotent = isIdempotent(request.method());
+        List<Endpoint> tried = new ArrayList<>(2);
+        IOException last = null;
+        for (int i = 0; i < endpoints.size(); i++) {
+            Endpoint endpoint = select(tried);
+            if (endpoint == null) {
+                break;
+            }
+            tried.add(endpoint);
+            HttpUrl url = request.url().newBuilder()
+                    .scheme(endpoint.url.scheme())
+                    .host(endpoint.url.host())
+                    .port(endpoint.url.port())
+                    .build();
+            endpoint.outstanding.incrementAndGet();
+            try {
+                Response response = chain.proceed(request.newBuilder().url(url).build());
+                if (isServerError(response.code())) {
+                    endpoint.onFailure();
+                } else {
+                    endpoint.onSuccess();
+                }
+                return response;
+            } catch (IOException e) {
+                endpoint.onFailure();
+                last = e;
+                // 连接失败时请求还未发出，任何请求都可以重试
+                if (!idempotent && !(e instanceof ConnectException)) {
+                    throw e;
+                }
+                log.warn("minio节点{}请求失败，尝试其他节点：{}", endpoint.url, e.toString());
+            } finally {
+                endpoint.outstanding.decrementAndGet();
+            }
+        }
+        throw last != null ? last : new IOException("没有可用的minio节点");
+    }
+
+    /**
+     * 选择节点，优先选择未熔断的节点，其次是熔断到期可以试探的节点，都没有时选择最早到期的节点
+     */
+    private Endpoint select(List<Endpoint> tried) {
+        long now = System.nanoTime();
+        int size = endpoints.size();
+        int start = Math.floorMod(counter.getAndIncrement(), size);
+        Endpoint selected = null;
+        for (int i = 0; i < size; i++) {
+            Endpoint endpoint = endpoints.get((start + i) % size);
+            if (tried.contains(endpoint) || !endpoint.isClosed()) {
+                continue;
+            }
+            if (loadBalance == LoadBalanceType.ROUND_ROBIN) {
+                return endpoint;
+            }
+            if (selected == null || endpoint.outstanding.get() < selected.outstanding.get()) {
+                selected = endpoint;
+            }
+        }
+        if (selected != null) {
+            return selected;
+        }
+        for (int i = 0; i < size; i++) {
+            Endpoint endpoint = endpoints.get((start + i) % size);
+            if (!tried.contains(endpoint) && endpoint.tryHalfOpen(now)) {
+                return endpoint;
+            }
+        }
+        // 所有节点都已熔断，仍然尝试最早到期的节点
+        for (Endpoint endpoint : endpoints) {
+            if (!tried.contains(endpoint) && (selected == null || endpoint.openUntil.get() - selected.openUntil.get() < 0)) {
+                selected = endpoint;
+            }
+        }
+        return selected;
+    }
+
+    private static boolean isIdempotent(String method) {
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+
+    /**
+     * 网关错误和服务不可用视为节点故障，其他状态码由minio客户端处理
+     */
+    private static boolean isServerError(int code) {
+        return code == 500 || code == 502 || code == 503 || code == 504;
+    }
+
+    /**
+     * 节点状态
+     */
+    public class Endpoint {
+
+        @Getter
+        private final HttpUrl url;
+
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        /**
+         * 熔断到期时间，0表示未熔断
+         */
+        private final AtomicLong openUntil = new AtomicLong();
+
+        /**
+         * 熔断到期后是否已放行试探请求
+         */
+        private final AtomicBoolean probing = new AtomicBoolean();
+
+        private Endpoint(HttpUrl url) {
+            this.url = url;
+        }
+
+        /**
+         * 进行中的请求数
+         */
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        /**
+         * 连续失败次数
+         */
+        public int getFailures() {
+            return failures.get();
+        }
+
+        /**
+         * 是否可用，未熔断的节点可用
+         */
+        public boolean isClosed() {
+            return openUntil.get() == 0;
+        }
+
+        /**
+         * 熔断已到期且没有其他试探请求时放行一个请求
+         */
+        private boolean tryHalfOpen(long now) {
+            long until = openUntil.get();
+            return until != 0 && now - until >= 0 && probing.compareAndSet(false, true);
+        }
+
+        private void onSuccess() {
+            failures.set(0);
+            if (openUntil.getAndSet(0) != 0) {
+                log.info("minio节点{}已恢复", url);
+            }
+            probing.set(false);
+        }
+
+        private void onFailure() {
+            int count = failures.incrementAndGet();
+            if (count >= failureThreshold || probing.get()) {
+                long until = System.nanoTime() + circuitOpenNanos;
+                openUntil.set(until == 0 ? 1 : until);
+                probing.set(false);
+                log.warn("minio节点{}连续失败{}次，熔断{}秒", url, count, TimeUnit.NANOSECONDS.toSeconds(circuitOpenNanos));
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.jie.file.config;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioClient;
+import io.minio.messages.ListPartsResult;
+import io.minio.messages.Part;
+
+import java.io.BufferedInputStream;
+
+/**
+ * minio分片上传客户端
+ * 对外暴露MinioClient中受保护的原生分片上传接口
+ *
+ * @author jie
+ */
+public class MinioMultipartClient extends MinioClient {
+
+    private static final String CONTENT_TYPE = "Content-Type";
+
+    public MinioMultipartClient(MinioClient client) {
+        super(client);
+    }
+
+    /**
+     * 创建分片上传任务
+     *
+     * @param bucketName  桶名称
+     * @param objectName  对象名称
+     * @param contentType 文件类型
+     * @return 分片上传ID
+     */
+    public String createMultipartUpload(String bucketName, String objectName, String contentType) throws Exception {
+        Multimap<String, String> headers = HashMultimap.create();
+        if (contentType != null && !"".equals(contentType)) {
+            headers.put(CONTENT_TYPE, contentType);
+        }
+        return createMultipartUpload(bucketName, null, objectName, headers, null).result().uploadId();
+    }
+
+    /**
+     * 上传单个分片
+     *
+     * @param bucketName 桶名称
+     * @param objectName 对象名称
+     * @param uploadId   分片上传ID
+     * @param partNumber 分片序号，从1开始
+     * @param in         分片数据
+     * @param length     分片大小
+     * @return 分片etag
+     */
+    public String uploadPart(String bucketName, String objectName, String uploadId, int partNumber,
+                             BufferedInputStream in, int length) throws Exception {
+        return uploadPart(bucketName, null, objectName, in, length, uploadId, partNumber, null, null).etag();
+    }
+
+    /**
+     * 上传单个分片
+     *
+     * @param bucketName 桶名称
+     * @param objectName 对象名称
+     * @param uploadId   分片上传ID
+     * @param partNumber 分片序号，从1开始
+     * @param data       分片数据
+     * @param length     分片大小
+     * @return 分片etag
+     */
+    public String uploadPart(String bucketName, String objectName, String uploadId, int partNumber,
+                             byte[] data, int length) throws Exception {
+        return uploadPart(bucketName, null, objectName, data, length, uploadId, partNumber, null, null).etag();
+    }
+
+    /**
+     * 列出已上传的分片
+     *
+     * @param bucketName 桶名称
+     * @param objectName 对象名称
+     * @param uploadId   分片上传ID
+     * @param marker     分片序号起始标记
+     * @return 分片列表
+     */
+    public ListPartsResult listParts(String bucketName, String objectName, String uploadId, int marker) throws Exception {
+        return listParts(bucketName, null, objectName, null, marker, uploadId, null, null).result();
+    }
+
+    /**
+     * 合并分片
+     *
+     * @param bucketName 桶名称
+     * @param objectName 对象名称
+     * @param uploadId   分片上传ID
+     * @param parts      全部分片
+     */
+    public void completeMultipartUpload(String bucketName, String objectName, String uploadId, Part[] parts) throws Exception {
+        completeMultipartUpload(bucketName, null, objectName, uploadId, parts, null, null);
+    }
+
+    /**
+     * 取消分片上传
+     *
+     * @param bucketName 桶名称
+     * @param objectName 对象名称
+     * @param uploadId   分片上传ID
+     */
+    public void abortMultipartUpload(String bucketName, String objectName, String uploadId) throws Exception {
+        abortMultipartUpload(bucketName, null, objectName, uploadId, null, null);
+    }
+}
@@ -0,0 +1,84 @@
+package com.jie.file.config;
+
+import com.jie.file.cache.FileReadCache;
+import com.jie.file.enumeration.FileStorageType;
+import com.jie.file.properties.FileServerProperties;
+import com.jie.file.strategy.FileStrategy;
+import com.jie.file.strategy.impl.CachingFileStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.nio.file.Paths;
+
+/**
+ * 文件内容缓存配置类
+ * 将已注册的文件存储策略包装为 {@link CachingFileStrategy}
+ *
+ * @author jie
+ */
+@Configuration
+@Slf4j
+@EnableConfigurationProperties(FileServerProperties.class)
+@ConditionalOnProperty(value = "jie.file.read-cache.enabled", havingValue = "true")
+public class ReadCacheAutoConfigure {
+
+    /**
+     * 包装文件存储策略的顺序，先于监控指标执行，缓存在最内层，命中缓存的读取也会记录指标
+     */
+    public static final int POST_PROCESSOR_ORDER = Ordered.LOWEST_PRECEDENCE - 20;
+
+    @Bean
+    @ConditionalOnMissingBean
+    public FileReadCache fileReadCache(FileServerProperties fileProperties) {
+        FileServerProperties.ReadCache readCache = fileProperties.getReadCache();
+        log.info("=========================文件内容缓存：总大小{}字节，单个文件{}字节，有效期{}秒",
+                readCache.getMaxSize(), readCache.getMaxEntrySize(), readCache.getTtlSeconds());
+        return new FileReadCache(readCache.getMaxSize(), readCache.getMaxEntrySize(), readCache.getTtlSeconds());
+    }
+
+    @Bean
+    public static BeanPostProcessor cachingFileStrategyPostProcessor(ObjectProvider<FileReadCache> fileReadCache,
+                                                                     ObjectProvider<FileServerProperties> fileProperties) {
+        return new CachingFileStrategyPostProcessor(fileReadCache, fileProperties);
+    }
+
+    private static class CachingFileStrategyPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<FileReadCache> fileReadCache;
+
+        private final ObjectProvider<FileServerProperties> fileProperties;
+
+        private CachingFileStrategyPostProcessor(ObjectProvider<FileReadCache> fileReadCache,
+                                                 ObjectProvider<FileServerProperties> fileProperties) {
+            this.fileReadCache = fileReadCache;
+            this.fileProperties = fileProperties;
+        }
+
+        @Override
+        public int getOrder() {
+            return POST_PROCESSOR_ORDER;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof FileStrategy) || bean instanceof CachingFileStrategy) {
+                return bean;
+            }
+            FileServerProperties properties = fileProperties.getObject();
+            if (properties.getType() == FileStorageType.LOCAL && properties.getLocal() != null) {
+                // 本地策略删除时的文件名称相对于桶目录，读取时的文件名称包含桶目录
+                String bucketName = properties.getLocal().getBucketName();
+                return new CachingFileStrategy((FileStrategy) bean, fileReadCache.getObject(),
+                        fileName -> Paths.get(bucketName, fileName).toString());
+            }
+            return new CachingFileStrategy((FileStrategy) bean, fileReadCache.getObject());
+        }
+    }
+}
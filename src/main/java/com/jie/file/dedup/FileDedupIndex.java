@@ -0,0 +1,62 @@
+package com.jie.file.dedup;
+
+/**
+ * 文件去重索引
+ * 以文件md5和大小为键记录已存储的文件及其引用次数，相同内容的文件只保存一份
+ *
+ * @author jie
+ */
+public interface FileDedupIndex {
+
+    /**
+     * 登记文件，内容已存在时增加引用次数并返回已存在文件的相对路径
+     *
+     * @param md5          文件md5
+     * @param size         文件大小
+     * @param relativePath 新文件的相对路径
+     * @return 已存在文件的相对路径，不存在时返回null并登记新文件
+     */
+    String putIfAbsent(String md5, long size, String relativePath);
+
+    /**
+     * 查找已存在的文件，不改变引用次数
+     *
+     * @param md5  文件md5
+     * @param size 文件大小
+     * @return 已存在文件的相对路径，不存在时返回null
+     */
+    String get(String md5, long size);
+
+    /**
+     * 释放一次文件引用
+     * 释放最后一次引用时索引项进入待删除状态，不再被查找和秒传命中；删除文件后需要调用
+     * {@link #commitRelease(String)} 或 {@link #rollbackRelease(String)}
+     *
+     * @param relativePath 文件的相对路径
+     * @return 文件是否已无引用，可以删除
+     */
+    boolean release(String relativePath);
+
+    /**
+     * 文件删除成功，移除待删除的索引项
+     *
+     * @param relativePath 文件的相对路径
+     */
+    void commitRelease(String relativePath);
+
+    /**
+     * 文件删除失败，恢复待删除索引项的引用，重试删除时引用次数不会被重复扣减
+     * 期间相同内容已被重新登记时不做处理
+     *
+     * @param relativePath 文件的相对路径
+     */
+    void rollbackRelease(String relativePath);
+
+    /**
+     * 移除索引，用于已存储文件丢失的情况
+     *
+     * @param md5  文件md5
+     * @param size 文件大小
+     */
+    void remove(String md5, long size);
+}
@@ -0,0 +1,187 @@
+package com.jie.file.dedup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * 本地磁盘去重索引
+ * 每个索引项保存为一个小文件，重启后引用计数不丢失；引用次数为0的索引项表示文件正在删除
+ * <pre>
+ * {path}/content/{md5前两位}/{md5}-{size}.properties  文件相对路径、引用次数
+ * {path}/path/{相对路径的md5}                          md5-size
+ * </pre>
+ *
+ * @author jie
+ */
+@Slf4j
+public class LocalFileDedupIndex implements FileDedupIndex {
+
+    private static final String RELATIVE_PATH = "relativePath";
+    private static final String REF_COUNT = "refCount";
+
+    private final Path contentPath;
+
+    private final Path pathPath;
+
+    public LocalFileDedupIndex(String path) {
+        this.contentPath = Paths.get(path, "content");
+        this.pathPath = Paths.get(path, "path");
+        log.info("=========================文件去重索引目录：{}", path);
+    }
+
+    @Override
+    public synchronized String putIfAbsent(String md5, long size, String relativePath) {
+        try {
+            Path entryPath = entryPath(md5, size);
+            Properties entry = read(entryPath);
+            if (entry != null && refCount(entry) > 0) {
+                entry.setProperty(REF_COUNT, String.valueOf(Long.parseLong(entry.getProperty(REF_COUNT)) + 1));
+                write(entryPath, entry);
+                return entry.getProperty(RELATIVE_PATH);
+            }
+            // 不存在或待删除，以新文件登记
+            entry = new Properties();
+            entry.setProperty(RELATIVE_PATH, relativePath);
+            entry.setProperty(REF_COUNT, "1");
+            write(entryPath, entry);
+            Properties path = new Properties();
+            path.setProperty("key", md5 + "-" + size);
+            write(pathEntryPath(relativePath), path);
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized String get(String md5, long size) {
+        try {
+            Properties entry = read(entryPath(md5, size));
+            return entry == null || refCount(entry) <= 0 ? null : entry.getProperty(RELATIVE_PATH);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized boolean release(String relativePath) {
+        try {
+            Path entryPath = entryPath(relativePath);
+            Properties entry = entryPath == null ? null : read(entryPath);
+            if (entry == null || !relativePath.equals(entry.getProperty(RELATIVE_PATH))) {
+                Files.deleteIfExists(pathEntryPath(relativePath));
+                return true;
+            }
+            long refCount = refCount(entry) - 1;
+            entry.setProperty(REF_COUNT, String.valueOf(Math.max(refCount, 0)));
+            write(entryPath, entry);
+            return refCount <= 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void commitRelease(String relativePath) {
+        try {
+            Path entryPath = entryPath(relativePath);
+            Properties entry = entryPath == null ? null : read(entryPath);
+            if (entry != null && relativePath.equals(entry.getProperty(RELATIVE_PATH))) {
+                if (refCount(entry) > 0) {
+                    return;
+                }
+                Files.deleteIfExists(entryPath);
+            }
+            Files.deleteIfExists(pathEntryPath(relativePath));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void rollbackRelease(String relativePath) {
+        try {
+            Path entryPath = entryPath(relativePath);
+            Properties entry = entryPath == null ? null : read(entryPath);
+            if (entry != null && relativePath.equals(entry.getProperty(RELATIVE_PATH)) && refCount(entry) <= 0) {
+                entry.setProperty(REF_COUNT, "1");
+                write(entryPath, entry);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void remove(String md5, long size) {
+        try {
+            Path entryPath = entryPath(md5, size);
+            Properties entry = read(entryPath);
+            if (entry != null) {
+                Files.deleteIfExists(pathEntryPath(entry.getProperty(RELATIVE_PATH)));
+                Files.deleteIfExists(entryPath);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 相对路径对应的索引项文件，没有登记时返回null
+     */
+    private Path entryPath(String relativePath) throws IOException {
+        Properties path = read(pathEntryPath(relativePath));
+        if (path == null) {
+            return null;
+        }
+        String key = path.getProperty("key");
+        int index = key.lastIndexOf('-');
+        return entryPath(key.substring(0, index), Long.parseLong(key.substring(index + 1)));
+    }
+
+    private static long refCount(Properties entry) {
+        return Long.parseLong(entry.getProperty(REF_COUNT));
+    }
+
+    private Path entryPath(String md5, long size) {
+        return contentPath.resolve(md5.substring(0, 2)).resolve(md5 + "-" + size + ".properties");
+    }
+
+    private Path pathEntryPath(String relativePath) {
+        return pathPath.resolve(DigestUtils.md5DigestAsHex(relativePath.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static Properties read(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        Properties prop = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            prop.load(in);
+        }
+        return prop;
+    }
+
+    /**
+     * 先写临时文件再替换，避免写入中断导致索引损坏
+     */
+    private static void write(Path path, Properties prop) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            prop.store(out, null);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
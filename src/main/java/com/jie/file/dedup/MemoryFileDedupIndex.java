@@ -0,0 +1,109 @@
+package com.jie.file.dedup;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 内存去重索引
+ * 重启后引用计数丢失，适用于单实例且不依赖删除共享文件的场景
+ * 引用次数为0的索引项表示文件正在删除
+ *
+ * @author jie
+ */
+public class MemoryFileDedupIndex implements FileDedupIndex {
+
+    /**
+     * md5:size -> 索引项
+     */
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * 相对路径 -> md5:size
+     */
+    private final Map<String, String> paths = new HashMap<>();
+
+    @Override
+    public synchronized String putIfAbsent(String md5, long size, String relativePath) {
+        String key = key(md5, size);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.refCount > 0) {
+            entry.refCount++;
+            return entry.relativePath;
+        }
+        // 不存在或待删除，以新文件登记
+        entries.put(key, new Entry(relativePath));
+        paths.put(relativePath, key);
+        return null;
+    }
+
+    @Override
+    public synchronized String get(String md5, long size) {
+        Entry entry = entries.get(key(md5, size));
+        return entry == null || entry.refCount <= 0 ? null : entry.relativePath;
+    }
+
+    @Override
+    public synchronized boolean release(String relativePath) {
+        Entry entry = entry(relativePath);
+        if (entry == null) {
+            paths.remove(relativePath);
+            return true;
+        }
+        if (entry.refCount > 1) {
+            entry.refCount--;
+            return false;
+        }
+        entry.refCount = 0;
+        return true;
+    }
+
+    @Override
+    public synchronized void commitRelease(String relativePath) {
+        Entry entry = entry(relativePath);
+        if (entry != null && entry.refCount > 0) {
+            return;
+        }
+        if (entry != null) {
+            entries.remove(paths.get(relativePath));
+        }
+        paths.remove(relativePath);
+    }
+
+    @Override
+    public synchronized void rollbackRelease(String relativePath) {
+        Entry entry = entry(relativePath);
+        if (entry != null && entry.refCount <= 0) {
+            entry.refCount = 1;
+        }
+    }
+
+    @Override
+    public synchronized void remove(String md5, long size) {
+        Entry entry = entries.remove(key(md5, size));
+        if (entry != null) {
+            paths.remove(entry.relativePath);
+        }
+    }
+
+    /**
+     * 相对路径对应的索引项，相同内容已被其他文件重新登记时返回null
+     */
+    private Entry entry(String relativePath) {
+        String key = paths.get(relativePath);
+        Entry entry = key == null ? null : entries.get(key);
+        return entry == null || !entry.relativePath.equals(relativePath) ? null : entry;
+    }
+
+    private static String key(String md5, long size) {
+        return md5 + ":" + size;
+    }
+
+    private static class Entry {
+        private final String relativePath;
+        private int refCount = 1;
+
+        private Entry(String relativePath) {
+            this.relativePath = relativePath;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.jie.file.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * <p>
+ * 分片上传任务
+ * 初始化分片上传时创建，元数据保存在分片临时目录中，用于断点续传
+ * </p>
+ *
+ * @author jie
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+@Builder
+public class ChunkUpload {
+
+    /**
+     * 分片上传ID
+     */
+    private String uploadId;
+
+    /**
+     * 存储端的分片上传ID
+     * 用于minio原生分片上传
+     */
+    private String storageUploadId;
+
+    /**
+     * 原始文件名
+     */
+    private String submittedFileName;
+
+    /**
+     * 文件类型
+     */
+    private String contextType;
+
+    /**
+     * 自定义的文件目录
+     */
+    private String dir;
+
+    /**
+     * 文件大小
+     * 单位字节
+     */
+    private Long size;
+
+    /**
+     * 分片大小
+     * 单位字节，最后一个分片可以小于该值
+     */
+    private Long chunkSize;
+
+    /**
+     * 分片数量
+     */
+    private Integer chunkCount;
+
+    /**
+     * 唯一文件名
+     */
+    private String fileName;
+
+    /**
+     * 文件的相对路径
+     */
+    private String relativePath;
+
+    /**
+     * 创建时间
+     */
+    private Long createTime;
+
+    /**
+     * 获取指定分片的大小
+     *
+     * @param chunkNumber 分片序号，从1开始
+     * @return 分片大小
+     */
+    public long getChunkLength(int chunkNumber) {
+        return Math.min(chunkSize, size - (chunkNumber - 1) * chunkSize);
+    }
+
+    /**
+     * 获取指定分片在文件中的偏移量
+     *
+     * @param chunkNumber 分片序号，从1开始
+     * @return 偏移量
+     */
+    public long getChunkOffset(int chunkNumber) {
+        return (chunkNumber - 1) * chunkSize;
+    }
+}
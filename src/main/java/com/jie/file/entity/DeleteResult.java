@@ -0,0 +1,48 @@
+package com.jie.file.entity;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * 批量删除结果
+ * 记录每个文件的删除结果，可以被多个删除线程同时写入
+ * </p>
+ *
+ * @author jie
+ */
+@Getter
+@ToString
+public class DeleteResult {
+
+    /**
+     * 删除成功的文件
+     */
+    private final List<String> successes = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * 删除失败的文件及失败原因
+     */
+    private final Map<String, String> failures = new ConcurrentHashMap<>();
+
+    public void addSuccess(String fileName) {
+        successes.add(fileName);
+    }
+
+    public void addFailure(String fileName, String message) {
+        failures.put(fileName, message == null ? "" : message);
+    }
+
+    /**
+     * 是否全部删除成功
+     */
+    public boolean isSuccess() {
+        return failures.isEmpty();
+    }
+}
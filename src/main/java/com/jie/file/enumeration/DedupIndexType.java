@@ -0,0 +1,17 @@
+package com.jie.file.enumeration;
+
+/**
+ * 去重索引类型
+ * @author jie
+ */
+public enum DedupIndexType {
+    /**
+     * 内存索引，重启后引用计数丢失
+     */
+    MEMORY,
+
+    /**
+     * 本地磁盘索引
+     */
+    LOCAL
+}
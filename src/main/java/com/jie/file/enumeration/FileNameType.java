@@ -0,0 +1,31 @@
+package com.jie.file.enumeration;
+
+/**
+ * 文件名生成方式
+ * 公开访问的文件链接由文件名拼接而成，文件名可以被猜到时，他人可以按顺序遍历出其他文件的链接
+ * UUID、UUID_V7、ULID的随机部分来自SecureRandom，不可猜测；SNOWFLAKE没有随机部分，可以被猜到
+ * @author jie
+ */
+public enum FileNameType {
+    /**
+     * 随机UUID，与早期版本一致，无序
+     */
+    UUID,
+
+    /**
+     * UUID第7版，格式与UUID相同，按毫秒时间有序，74位随机数，文件名暴露上传时间
+     */
+    UUID_V7,
+
+    /**
+     * ULID，26位Crockford Base32，按毫秒时间有序，80位随机数，文件名暴露上传时间
+     */
+    ULID,
+
+    /**
+     * 雪花算法，19位数字，严格递增，集群部署时需要为每个实例配置不同的workerId
+     * 由时间、workerId和序号组成，知道一个文件名即可推算出同一时间段内的其他文件名，
+     * 只适合不公开访问、或访问时另有权限校验的文件
+     */
+    SNOWFLAKE
+}
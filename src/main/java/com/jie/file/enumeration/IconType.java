@@ -4,6 +4,10 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 /**
  * 图标 常量
  * @author jie
@@ -192,15 +196,21 @@ public enum IconType {
     private String ext;
     private String icon;
 
+    /**
+     * 小写后缀到图标的索引，同一后缀出现多次时取先定义的
+     */
+    private static final Map<String, IconType> BY_EXT = new HashMap<>();
+
+    static {
+        for (IconType it : values()) {
+            BY_EXT.putIfAbsent(it.ext.toLowerCase(Locale.ROOT), it);
+        }
+    }
+
     public static IconType getIcon(String ext) {
         if (ext == null || ext.isEmpty()) {
             return OTHER;
         }
-        for (IconType it : IconType.values()) {
-            if (it.getExt().equalsIgnoreCase(ext)) {
-                return it;
-            }
-        }
-        return OTHER;
+        return BY_EXT.getOrDefault(ext.toLowerCase(Locale.ROOT), OTHER);
     }
 }
@@ -0,0 +1,17 @@
+package com.jie.file.enumeration;
+
+/**
+ * 多节点负载均衡方式
+ * @author jie
+ */
+public enum LoadBalanceType {
+    /**
+     * 轮询
+     */
+    ROUND_ROBIN,
+
+    /**
+     * 选择进行中请求最少的节点
+     */
+    LEAST_REQUESTS
+}
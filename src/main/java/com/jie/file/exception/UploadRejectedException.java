@@ -0,0 +1,16 @@
+package com.jie.file.exception;
+
+/**
+ * 上传被拒绝异常
+ * 进行中的上传数量或字节数达到上限，且在等待时间内没有空闲额度时抛出，调用方可以稍后重试
+ *
+ * @author jie
+ */
+public class UploadRejectedException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public UploadRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.jie.file.naming;
+
+/**
+ * 文件名生成器，生成上传文件在存储中的文件名（不含后缀）
+ * 实现类需要线程安全，上传时会被多个线程同时调用
+ *
+ * @author jie
+ */
+public interface FileNameGenerator {
+
+    /**
+     * 生成文件名
+     *
+     * @return 不含后缀的文件名
+     */
+    String generate();
+}
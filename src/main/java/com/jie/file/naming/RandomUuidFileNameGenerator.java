@@ -0,0 +1,17 @@
+package com.jie.file.naming;
+
+import java.util.UUID;
+
+/**
+ * 随机UUID文件名
+ * UUID.randomUUID() 共用一个SecureRandom，高并发上传时会有竞争，仅用于兼容早期版本的文件名
+ *
+ * @author jie
+ */
+public class RandomUuidFileNameGenerator implements FileNameGenerator {
+
+    @Override
+    public String generate() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,69 @@
+package com.jie.file.naming;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 雪花算法文件名：41位毫秒时间戳（从2021-01-01开始）+ 10位workerId + 12位序号
+ * 同一实例内严格递增，时钟回拨时沿用上一次的时间戳继续递增序号；序号用CAS更新，不加锁
+ * 输出固定19位数字，字符串顺序与数值顺序一致
+ *
+ * @author jie
+ */
+public class SnowflakeFileNameGenerator implements FileNameGenerator {
+
+    /**
+     * 2021-01-01T00:00:00Z
+     */
+    private static final long EPOCH = 1609459200000L;
+
+    private static final int WORKER_BITS = 10;
+
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_WORKER_ID = (1L << WORKER_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final int LENGTH = 19;
+
+    private final long workerId;
+
+    /**
+     * 上一次生成的（时间戳 << 12 | 序号）
+     */
+    private final AtomicLong last = new AtomicLong();
+
+    public SnowflakeFileNameGenerator(long workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId必须在0到" + MAX_WORKER_ID + "之间");
+        }
+        this.workerId = workerId;
+    }
+
+    @Override
+    public String generate() {
+        return format(nextId());
+    }
+
+    public long nextId() {
+        long next;
+        long prev;
+        do {
+            prev = last.get();
+            long now = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+            // 新的毫秒从0开始；同一毫秒、时钟回拨或序号用完时在上一次的基础上加一，序号溢出会进位到下一毫秒
+            next = now > prev ? now : prev + 1;
+        } while (!last.compareAndSet(prev, next));
+        long timestamp = next >>> SEQUENCE_BITS;
+        return (timestamp << (WORKER_BITS + SEQUENCE_BITS)) | (workerId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+    }
+
+    private static String format(long id) {
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = (char) ('0' + id % 10);
+            id /= 10;
+        }
+        return new String(chars);
+    }
+}
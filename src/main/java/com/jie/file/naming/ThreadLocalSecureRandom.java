@@ -0,0 +1,30 @@
+package com.jie.file.naming;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * 每个线程一个SecureRandom，文件名中的随机数不可预测，线程之间没有竞争
+ * 默认的NativePRNG所有实例共用一个锁，这里使用实例之间互不影响的SHA1PRNG，首次使用时由系统熵源自动播种
+ *
+ * @author jie
+ */
+final class ThreadLocalSecureRandom {
+
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(ThreadLocalSecureRandom::create);
+
+    private ThreadLocalSecureRandom() {
+    }
+
+    static SecureRandom current() {
+        return RANDOM.get();
+    }
+
+    private static SecureRandom create() {
+        try {
+            return SecureRandom.getInstance("SHA1PRNG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+}
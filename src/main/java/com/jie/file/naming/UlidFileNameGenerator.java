@@ -0,0 +1,41 @@
+package com.jie.file.naming;
+
+import java.security.SecureRandom;
+
+/**
+ * ULID文件名，48位毫秒时间戳加80位随机数，编码为26位Crockford Base32
+ * 字符串顺序与时间顺序一致，同一毫秒内的顺序不固定
+ * 随机数来自每个线程各自的SecureRandom，文件名不可猜测，但时间戳部分会暴露上传时间
+ *
+ * @author jie
+ */
+public class UlidFileNameGenerator implements FileNameGenerator {
+
+    private static final char[] ENCODING = "0123456789abcdefghjkmnpqrstvwxyz".toCharArray();
+
+    @Override
+    public String generate() {
+        SecureRandom random = ThreadLocalSecureRandom.current();
+        long time = System.currentTimeMillis();
+        long high = random.nextLong() & 0xFFFFL;
+        long low = random.nextLong();
+        char[] chars = new char[26];
+        // 时间戳48位，10个字符，最高位字符只用3位
+        for (int i = 9; i >= 0; i--) {
+            chars[i] = ENCODING[(int) (time & 0x1F)];
+            time >>>= 5;
+        }
+        // 随机数80位：高16位 + 低64位，16个字符
+        for (int i = 25; i >= 14; i--) {
+            chars[i] = ENCODING[(int) (low & 0x1F)];
+            low >>>= 5;
+        }
+        // low剩余4位与high拼接
+        long rest = (high << 4) | low;
+        for (int i = 13; i >= 10; i--) {
+            chars[i] = ENCODING[(int) (rest & 0x1F)];
+            rest >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,22 @@
+package com.jie.file.naming;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * UUID第7版文件名，前48位为毫秒时间戳，其余为随机数
+ * 格式与随机UUID相同（36位），同一毫秒内的顺序不固定
+ * 74位随机数来自每个线程各自的SecureRandom，文件名可以作为公开链接使用，但时间戳部分会暴露上传时间
+ *
+ * @author jie
+ */
+public class UuidV7FileNameGenerator implements FileNameGenerator {
+
+    @Override
+    public String generate() {
+        SecureRandom random = ThreadLocalSecureRandom.current();
+        long msb = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextInt() & 0x0FFFL);
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb).toString();
+    }
+}
@@ -1,10 +1,19 @@
 package com.jie.file.properties;
 
+import com.jie.file.enumeration.DataType;
+import com.jie.file.enumeration.DedupIndexType;
+import com.jie.file.enumeration.FileNameType;
 import com.jie.file.enumeration.FileStorageType;
+import com.jie.file.enumeration.LoadBalanceType;
 import com.jie.file.utils.StrPool;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 文件策略配置属性类
  *
@@ -58,6 +67,36 @@ public class FileServerProperties {
     private Properties qiniu;
     private Properties tencent;
 
+    /**
+     * 异步操作线程池配置
+     */
+    private Async async = new Async();
+
+    /**
+     * 文件去重配置
+     */
+    private Dedup dedup = new Dedup();
+
+    /**
+     * 文件内容缓存配置
+     */
+    private ReadCache readCache = new ReadCache();
+
+    /**
+     * 上传准入控制配置
+     */
+    private Admission admission = new Admission();
+
+    /**
+     * 文件类型识别配置
+     */
+    private FileType fileType = new FileType();
+
+    /**
+     * 文件名生成配置
+     */
+    private FileName fileName = new FileName();
+
     @Data
     public static class Properties {
         /**
@@ -80,6 +119,66 @@ public class FileServerProperties {
          * 项目目录名称
          */
         private String bucketName;
+        /**
+         * 是否使用流式写入（本地策略），开启后上传文件直接从临时文件/输入流拷贝到目标文件，不再整体读入内存
+         */
+        private Boolean streamWrite = true;
+        /**
+         * 分片大小（minio策略），单位字节，不能小于5MB，每个上传占用的缓冲区大小约为 分片大小 * 上传并发数
+         */
+        private Long partSize = 8L * 1024 * 1024;
+        /**
+         * 单个文件的分片上传并发数（minio策略），大于1时超过分片大小的文件会并行上传各分片
+         */
+        private Integer uploadParallelism = 1;
+        /**
+         * 批量删除并发数
+         */
+        private Integer deleteParallelism = 8;
+        /**
+         * 批量判断文件是否存在时的并发数（minio策略）
+         */
+        private Integer existsParallelism = 16;
+        /**
+         * 是否使用内存映射读取小文件（本地策略）
+         */
+        private Boolean mmapRead = false;
+        /**
+         * 使用内存映射读取的文件大小上限，单位字节
+         */
+        private Long mmapMaxFileSize = 1024L * 1024;
+        /**
+         * 内存映射缓存的总大小上限，单位字节
+         */
+        private Long mmapCacheSize = 64L * 1024 * 1024;
+        /**
+         * 是否开启本地磁盘缓存（minio策略），开启后读取过的文件保存到本地目录，之后直接从本地磁盘读取
+         */
+        private Boolean diskCache = false;
+        /**
+         * 磁盘缓存目录，默认为 ${storagePath}/cache，未配置storagePath时为 ${user.home}/.jie-file/cache
+         */
+        private String diskCachePath;
+        /**
+         * 磁盘缓存的总大小上限，单位字节
+         */
+        private Long diskCacheSize = 10L * 1024 * 1024 * 1024;
+        /**
+         * 文件访问地址的签名有效期（minio策略），单位秒，最长7天
+         */
+        private Integer urlExpiry = 7 * 24 * 3600;
+        /**
+         * 缓存的文件访问地址数量上限（minio策略），小于等于0时不缓存。缓存有效期为签名有效期的一半
+         */
+        private Integer urlCacheSize = 10000;
+        /**
+         * HTTP连接配置（minio策略）
+         */
+        private Http http = new Http();
+        /**
+         * 多节点配置（minio策略）
+         */
+        private Cluster cluster = new Cluster();
 
         public String getUriPrefix() {
             if (!uriPrefix.endsWith(StrPool.BACK_SLASH)) {
@@ -95,4 +194,184 @@ public class FileServerProperties {
             return endpoint;
         }
     }
-}
\ No newline at end of file
+
+    @Data
+    public static class Http {
+        /**
+         * 连接池最大空闲连接数
+         */
+        private Integer maxIdleConnections = 64;
+        /**
+         * 空闲连接存活时间，单位秒
+         */
+        private Integer keepAliveSeconds = 300;
+        /**
+         * 建立连接超时时间，单位秒
+         */
+        private Integer connectTimeoutSeconds = 10;
+        /**
+         * 读取超时时间，单位秒
+         */
+        private Integer readTimeoutSeconds = 300;
+        /**
+         * 写入超时时间，单位秒
+         */
+        private Integer writeTimeoutSeconds = 300;
+        /**
+         * 异步请求的最大并发数
+         */
+        private Integer maxRequests = 256;
+        /**
+         * 异步请求对单个主机的最大并发数
+         */
+        private Integer maxRequestsPerHost = 128;
+    }
+
+    @Data
+    public static class Cluster {
+        /**
+         * 节点地址列表（http://ip:端口），为空时只使用endpoint。
+         * 请求按负载均衡方式分发到各节点，签名仍使用endpoint的主机名，各节点需要属于同一个集群
+         */
+        private List<String> endpoints = new ArrayList<>();
+        /**
+         * 负载均衡方式
+         */
+        private LoadBalanceType loadBalance = LoadBalanceType.ROUND_ROBIN;
+        /**
+         * 节点连续失败多少次后熔断
+         */
+        private Integer failureThreshold = 3;
+        /**
+         * 熔断时间，单位秒，到期后放行一个请求试探节点是否恢复
+         */
+        private Integer circuitOpenSeconds = 30;
+    }
+
+    @Data
+    public static class Async {
+        /**
+         * 是否开启异步文件操作
+         */
+        private Boolean enabled = true;
+        /**
+         * 是否使用虚拟线程，仅在JDK21及以上版本生效，开启后忽略线程池大小配置
+         */
+        private Boolean virtualThreads = false;
+        /**
+         * 核心线程数
+         */
+        private Integer corePoolSize = Runtime.getRuntime().availableProcessors() * 2;
+        /**
+         * 最大线程数
+         */
+        private Integer maxPoolSize = Runtime.getRuntime().availableProcessors() * 8;
+        /**
+         * 等待队列长度
+         */
+        private Integer queueCapacity = 1000;
+        /**
+         * 空闲线程存活时间，单位秒
+         */
+        private Integer keepAliveSeconds = 60;
+        /**
+         * 线程名称前缀
+         */
+        private String threadNamePrefix = "file-async-";
+    }
+
+    @Data
+    public static class Dedup {
+        /**
+         * 是否开启文件去重，开启后上传时计算文件md5，内容相同的文件只保存一份
+         */
+        private Boolean enabled = false;
+        /**
+         * 去重索引类型，内存索引重启后引用计数丢失，删除文件时可能误删共享文件
+         */
+        private DedupIndexType type = DedupIndexType.LOCAL;
+        /**
+         * 本地索引目录，默认为 ${storagePath}/dedup，未配置storagePath时为 ${user.home}/.jie-file/dedup
+         */
+        private String path;
+    }
+
+    @Data
+    public static class ReadCache {
+        /**
+         * 是否开启文件内容缓存，开启后读取文件流时缓存小文件的内容，适用于头像、图标等被频繁读取的文件
+         */
+        private Boolean enabled = false;
+        /**
+         * 缓存总大小上限，单位字节
+         */
+        private Long maxSize = 64L * 1024 * 1024;
+        /**
+         * 单个文件大小上限，单位字节，超过的文件不缓存
+         */
+        private Long maxEntrySize = 1024L * 1024;
+        /**
+         * 缓存有效期，单位秒，小于等于0时不过期
+         */
+        private Long ttlSeconds = 300L;
+    }
+
+    @Data
+    public static class Admission {
+        /**
+         * 是否开启上传准入控制，开启后限制同时进行的上传数量和字节数，超出时排队等待
+         */
+        private Boolean enabled = false;
+        /**
+         * 小文件大小上限，单位字节，小文件和大文件分别限制并发数，互不影响
+         */
+        private Long smallFileThreshold = 1024L * 1024;
+        /**
+         * 同时上传的小文件数量上限
+         */
+        private Integer maxSmallConcurrent = 64;
+        /**
+         * 同时上传的大文件数量上限
+         */
+        private Integer maxLargeConcurrent = 8;
+        /**
+         * 进行中的大文件总字节数上限
+         */
+        private Long maxInFlightBytes = 512L * 1024 * 1024;
+        /**
+         * 排队等待时间，单位毫秒，小于等于0时没有空闲额度立即拒绝
+         */
+        private Long timeoutMillis = 30000L;
+    }
+
+    @Data
+    public static class FileType {
+        /**
+         * 是否根据文件头识别文件类型，开启后上传时读取文件开头的几百个字节，识别出的类型优先于客户端上传的Content-Type
+         */
+        private Boolean sniff = true;
+        /**
+         * 自定义的后缀图标，不区分大小写，优先于内置图标
+         * 例：jie.file.file-type.icons.dwg=el-icon-picture
+         */
+        private Map<String, String> icons = new LinkedHashMap<>();
+        /**
+         * 自定义的mime前缀到文件类型的映射，按最长前缀匹配，优先于内置映射
+         * 例：jie.file.file-type.data-types.[application/vnd.rar]=OTHER
+         */
+        private Map<String, DataType> dataTypes = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class FileName {
+        /**
+         * 文件名生成方式，默认UUID_V7，与随机UUID格式相同且按时间有序，随机部分不可猜测
+         * SNOWFLAKE生成的文件名可以被猜到，公开访问的文件不要使用
+         */
+        private FileNameType type = FileNameType.UUID_V7;
+        /**
+         * 雪花算法的workerId，0-1023，集群部署时每个实例需要不同；未配置时根据主机名和进程号计算
+         */
+        private Long workerId;
+    }
+}
@@ -47,6 +47,11 @@ public class AliOssAutoConfigure {
             return null;
         }
 
+        @Override
+        public InputStream getFileInputStream(String fileName, long offset, long length) {
+            return null;
+        }
+
         @Override
         public boolean fileExists(String fileName) {
             return false;
@@ -1,31 +1,67 @@
 package com.jie.file.storage;
 
+import com.jie.file.cache.MappedFileCache;
+import com.jie.file.entity.ChunkUpload;
+import com.jie.file.entity.DeleteResult;
 import com.jie.file.entity.File;
 import com.jie.file.properties.FileServerProperties;
 import com.jie.file.strategy.FileStrategy;
 import com.jie.file.strategy.impl.AbstractFileStrategy;
-import com.jie.file.utils.DateUtils;
+import com.jie.file.utils.DayStamp;
 import com.jie.file.utils.StrPool;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Pattern;
 
 /**
  * 本地上传策略配置类
@@ -48,7 +84,27 @@ public class LocalAutoConfigure {
     /**
      * 本地上传服务
      */
-    public static class LocalServiceImpl extends AbstractFileStrategy implements InitializingBean {
+    public static class LocalServiceImpl extends AbstractFileStrategy implements InitializingBean, DisposableBean {
+
+        /**
+         * 分片文件后缀
+         */
+        private final static String CHUNK_SUFFIX = ".part";
+
+        /**
+         * 上传时生成的日期目录名称，yyyy-MM-dd
+         */
+        private final static Pattern DATE_DIR = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+
+        /**
+         * 批量删除、分片合并线程池
+         */
+        private ExecutorService ioExecutor;
+
+        /**
+         * 小文件内存映射缓存，开启mmapRead时创建
+         */
+        private MappedFileCache mappedFileCache;
 
         public LocalServiceImpl() {
             log.info("=========================本地存储策略！");
@@ -57,32 +113,45 @@ public class LocalAutoConfigure {
         @Override
         public void afterPropertiesSet() throws Exception {
             properties = fileProperties.getLocal();
+            if (Boolean.TRUE.equals(properties.getMmapRead())) {
+                mappedFileCache = new MappedFileCache(properties.getMmapMaxFileSize(), properties.getMmapCacheSize());
+            }
+            ioExecutor = Executors.newFixedThreadPool(Math.max(properties.getDeleteParallelism(), 1), new CustomizableThreadFactory("local-io-"));
             log.info("=========================本地存储策略创建完成！");
         }
 
+        @Override
+        public void destroy() {
+            ioExecutor.shutdownNow();
+        }
+
         @Override
         public void uploadFile(File file, MultipartFile multipartFile) throws IOException {
             String endpoint = properties.getEndpoint();
-            String bucketName = properties.getBucketName();
 
-            //使用UUID为文件生成新文件名
-            String fileName = UUID.randomUUID().toString() + StrPool.DOT + file.getExt();
+            //生成新文件名
+            String fileName = generateFileName(file.getExt());
 
-            // D:\\uploadFiles\\oss-file-service\\2020\\05\\xxx.doc
-            //日期目录
-            String relativePath = Paths.get(LocalDate.now().format(DateTimeFormatter.ofPattern(DateUtils.DEFAULT_DATE_FORMAT))).toString();
-
-            //上传文件存储的绝对目录 例如：D:\\uploadFiles\\oss-file-service\\2020\\05
-            if (file.getDir() != null && !StrPool.EMPTY.equals(file.getDir())) {
-                relativePath = Paths.get(file.getDir(), relativePath).toString();
-            }
-            relativePath = Paths.get(bucketName, relativePath, fileName).toString();
+            String relativePath = getRelativePath(file.getDir(), fileName);
 
             //目标输出文件D:\\uploadFiles\\oss-file-service\\2020\\05\\xxx.doc
             java.io.File outFile = new java.io.File(Paths.get(endpoint, relativePath).toString());
 
             //向目标文件写入数据
-            FileUtils.writeByteArrayToFile(outFile, multipartFile.getBytes());
+            if (Boolean.TRUE.equals(properties.getStreamWrite())) {
+                try (InputStream in = digestInputStream(multipartFile.getInputStream())) {
+                    writeStream(outFile, in, multipartFile.getSize());
+                    setFileMd5(file, in);
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IOException(e);
+                }
+            } else {
+                byte[] bytes = multipartFile.getBytes();
+                FileUtils.writeByteArrayToFile(outFile, bytes);
+                if (dedupIndex != null) {
+                    file.setFileMd5(DigestUtils.md5DigestAsHex(bytes));
+                }
+            }
 
             //文件上传完成后需要设置File对象的属性(url，filename，relativePath），用于保存到数据库
             String url = getUriPrefix() +
@@ -99,6 +168,156 @@ public class LocalAutoConfigure {
             file.setRelativePath(relativePath);
         }
 
+        /**
+         * 获取文件的相对路径
+         *
+         * @param dir      自定义的文件目录
+         * @param fileName 文件名
+         * @return 相对路径
+         */
+        private String getRelativePath(String dir, String fileName) {
+            // D:\\uploadFiles\\oss-file-service\\2020\\05\\xxx.doc
+            //日期目录
+            String relativePath = DayStamp.today().getDateDir();
+
+            //上传文件存储的绝对目录 例如：D:\\uploadFiles\\oss-file-service\\2020\\05
+            if (dir != null && !StrPool.EMPTY.equals(dir)) {
+                relativePath = Paths.get(dir, relativePath).toString();
+            }
+            return Paths.get(properties.getBucketName(), relativePath, fileName).toString();
+        }
+
+        /**
+         * 流式写入文件
+         * 上传文件已落盘为临时文件时，通过FileChannel.transferFrom直接拷贝，否则按通道分段拷贝，内存占用与文件大小无关
+         *
+         * @param outFile 目标文件
+         * @param in      上传文件流，由调用方关闭
+         * @param size    文件大小
+         */
+        private void writeStream(java.io.File outFile, InputStream in, long size) throws IOException {
+            FileUtils.forceMkdirParent(outFile);
+            try (ReadableByteChannel src = in instanceof FileInputStream ? ((FileInputStream) in).getChannel() : Channels.newChannel(in);
+                 FileChannel dest = FileChannel.open(outFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long position = 0;
+                while (position < size) {
+                    long count = dest.transferFrom(src, position, size - position);
+                    if (count <= 0) {
+                        break;
+                    }
+                    position += count;
+                }
+            }
+        }
+
+        @Override
+        protected void initChunkFile(ChunkUpload chunkUpload) {
+            String fileName = generateFileName(FilenameUtils.getExtension(chunkUpload.getSubmittedFileName()));
+            chunkUpload.setFileName(fileName);
+            chunkUpload.setRelativePath(getRelativePath(chunkUpload.getDir(), fileName));
+        }
+
+        /**
+         * 分片先写入临时文件，写入完成后再重命名，避免未写完的分片被当作已上传
+         */
+        @Override
+        protected void uploadChunkFile(ChunkUpload chunkUpload, int chunkNumber, MultipartFile chunk) throws IOException {
+            Path chunkPath = getChunkPath(chunkUpload.getUploadId());
+            java.io.File tmpFile = chunkPath.resolve(chunkNumber + CHUNK_SUFFIX + StrPool.DOT + UUID.randomUUID()).toFile();
+            try {
+                try (InputStream in = chunk.getInputStream()) {
+                    writeStream(tmpFile, in, chunk.getSize());
+                }
+                Files.move(tmpFile.toPath(), chunkPath.resolve(chunkNumber + CHUNK_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                FileUtils.deleteQuietly(tmpFile);
+            }
+        }
+
+        @Override
+        protected List<Integer> listChunkFiles(ChunkUpload chunkUpload) throws IOException {
+            List<Integer> chunks = new ArrayList<>();
+            Path chunkPath = getChunkPath(chunkUpload.getUploadId());
+            if (!Files.isDirectory(chunkPath)) {
+                return chunks;
+            }
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(chunkPath, "*" + CHUNK_SUFFIX)) {
+                for (Path path : stream) {
+                    String name = path.getFileName().toString();
+                    chunks.add(Integer.valueOf(name.substring(0, name.length() - CHUNK_SUFFIX.length())));
+                }
+            }
+            Collections.sort(chunks);
+            return chunks;
+        }
+
+        /**
+         * 合并分片
+         * 各分片按偏移量在io线程池中并行写入目标文件的对应位置，互不依赖先后顺序
+         */
+        @Override
+        protected void mergeChunkFile(ChunkUpload chunkUpload) throws IOException {
+            Path chunkPath = getChunkPath(chunkUpload.getUploadId());
+            java.io.File outFile = Paths.get(properties.getEndpoint(), chunkUpload.getRelativePath()).toFile();
+            FileUtils.forceMkdirParent(outFile);
+            List<Future<?>> futures = new ArrayList<>(chunkUpload.getChunkCount());
+            try (FileChannel dest = FileChannel.open(outFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (int i = 1; i <= chunkUpload.getChunkCount(); i++) {
+                    int chunkNumber = i;
+                    futures.add(ioExecutor.submit(() -> {
+                        transferChunk(chunkPath, chunkUpload, chunkNumber, dest);
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (ExecutionException e) {
+                abortMerge(futures, outFile);
+                throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                abortMerge(futures, outFile);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("合并分片被中断");
+            } catch (RejectedExecutionException e) {
+                abortMerge(futures, outFile);
+                throw new IOException("分片合并线程池已关闭", e);
+            } catch (IOException e) {
+                abortMerge(futures, outFile);
+                throw e;
+            }
+        }
+
+        private void transferChunk(Path chunkPath, ChunkUpload chunkUpload, int chunkNumber, FileChannel dest) throws IOException {
+            try (FileChannel src = FileChannel.open(chunkPath.resolve(chunkNumber + CHUNK_SUFFIX), StandardOpenOption.READ)) {
+                long offset = chunkUpload.getChunkOffset(chunkNumber);
+                long length = chunkUpload.getChunkLength(chunkNumber);
+                long position = 0;
+                while (position < length) {
+                    long count = dest.transferFrom(src, offset + position, length - position);
+                    if (count <= 0) {
+                        throw new IOException("分片" + chunkNumber + "数据不完整");
+                    }
+                    position += count;
+                }
+            }
+        }
+
+        /**
+         * 合并失败时取消未开始的分片并删除目标文件；不中断正在写入的线程，避免中断关闭共用的文件通道
+         */
+        private void abortMerge(List<Future<?>> futures, java.io.File outFile) {
+            futures.forEach(future -> future.cancel(false));
+            FileUtils.deleteQuietly(outFile);
+        }
+
+        /**
+         * 分片临时目录由上层统一清理
+         */
+        @Override
+        protected void abortChunkFile(ChunkUpload chunkUpload) {
+        }
+
         /**
          * 文件删除
          */
@@ -120,19 +339,12 @@ public class LocalAutoConfigure {
                 log.error("删除文件集合为空！");
                 return false;
             }
-            int errNum = fileNames.length;
-            for (String fileName : fileNames) {
-                try {
-                    String filePath = Paths.get(properties.getEndpoint(), properties.getBucketName(), fileName).toString();
-                    java.io.File rmFile = new java.io.File(filePath);
-                    FileUtils.deleteQuietly(rmFile);
-                    --errNum;
-                } catch (Exception e) {
-                    log.error("删除文件{}时发生错误！", fileName);
-                    break;
-                }
+            try {
+                return batchDelete(Arrays.asList(fileNames)).isSuccess();
+            } catch (Exception e) {
+                log.error("批量删除文件时发生错误！");
+                return false;
             }
-            return errNum <= 0;
         }
 
         /**
@@ -144,17 +356,20 @@ public class LocalAutoConfigure {
                 log.error("删除文件为空！");
                 return false;
             }
-            // 拼接要删除的文件的绝对磁盘路径
-            int errNum = 1;
+            if (!releaseReference(file.getRelativePath())) {
+                // 文件仍被其他上传引用
+                return true;
+            }
+            // 拼接要删除的文件的绝对磁盘路径，相对路径中已包含桶目录
+            boolean deleted = false;
             try {
-                String filePath = Paths.get(properties.getEndpoint(), properties.getBucketName(), file.getRelativePath()).toString();
-                java.io.File rmFile = new java.io.File(filePath);
-                FileUtils.deleteQuietly(rmFile);
-                --errNum;
+                String filePath = Paths.get(properties.getEndpoint(), file.getRelativePath()).toString();
+                deleted = removeFile(new java.io.File(filePath));
             } catch (Exception e) {
                 log.error("删除文件{}时发生错误！", file.getFileName());
             }
-            return errNum <= 0;
+            completeRelease(file.getRelativePath(), deleted);
+            return deleted;
         }
 
         /**
@@ -166,33 +381,164 @@ public class LocalAutoConfigure {
                 log.error("删除文件集合为空！");
                 return false;
             }
-            int errNum = listFile.size();
-            for (File file : listFile) {
+            try {
+                return batchDeleteFiles(listFile).isSuccess();
+            } catch (Exception e) {
+                log.error("批量删除文件时发生错误！");
+                return false;
+            }
+        }
+
+        /**
+         * 并行批量删除文件，文件名称相对于桶目录
+         */
+        @Override
+        public DeleteResult batchDelete(Iterable<String> fileNames) throws InterruptedException {
+            return parallelDelete(fileNames.iterator(), Paths.get(properties.getEndpoint(), properties.getBucketName()));
+        }
+
+        /**
+         * 并行批量删除文件，文件的相对路径中已包含桶目录
+         */
+        @Override
+        public DeleteResult batchDeleteFiles(Iterable<File> files) throws InterruptedException {
+            Iterator<File> iterator = files.iterator();
+            return parallelDelete(new Iterator<String>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public String next() {
+                    return iterator.next().getRelativePath();
+                }
+            }, Paths.get(properties.getEndpoint()));
+        }
+
+        /**
+         * 并行删除文件
+         * 同时进行的删除数量不超过 deleteParallelism，全部删除完成后清理空的日期目录
+         *
+         * @param fileNames 要删除的文件
+         * @param basePath  文件名称的基础目录
+         * @return 删除结果
+         */
+        private DeleteResult parallelDelete(Iterator<String> fileNames, Path basePath) throws InterruptedException {
+            DeleteResult result = new DeleteResult();
+            Path root = Paths.get(properties.getEndpoint(), properties.getBucketName()).toAbsolutePath().normalize();
+            Path base = basePath.toAbsolutePath().normalize();
+            Set<Path> parents = ConcurrentHashMap.newKeySet();
+            int parallelism = Math.max(properties.getDeleteParallelism(), 1);
+            Semaphore permits = new Semaphore(parallelism);
+            while (fileNames.hasNext()) {
+                String fileName = fileNames.next();
+                permits.acquire();
                 try {
-                    String filePath = Paths.get(properties.getEndpoint(), properties.getBucketName(), file.getRelativePath()).toString();
-                    java.io.File rmFile = new java.io.File(filePath);
-                    FileUtils.deleteQuietly(rmFile);
-                    --errNum;
-                } catch (Exception e) {
-                    log.error("删除文件{}时发生错误！", file.getFileName());
-                    break;
+                    ioExecutor.execute(() -> {
+                        try {
+                            deletePath(root, base, fileName, result, parents);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    result.addFailure(fileName, "删除线程池已关闭");
                 }
             }
-            return errNum <= 0;
+            // 等待所有删除任务完成
+            permits.acquire(parallelism);
+            permits.release(parallelism);
+            cleanEmptyDirs(root, parents);
+            return result;
+        }
+
+        private void deletePath(Path root, Path base, String fileName, DeleteResult result, Set<Path> parents) {
+            if (fileName == null || StrPool.EMPTY.equals(fileName)) {
+                result.addFailure(String.valueOf(fileName), "删除文件为空");
+                return;
+            }
+            try {
+                Path path = base.resolve(fileName).normalize();
+                if (!path.startsWith(root) || path.equals(root)) {
+                    result.addFailure(fileName, "文件不在存储目录中");
+                    return;
+                }
+                String relativePath = root.getParent().relativize(path).toString();
+                if (releaseReference(relativePath)) {
+                    invalidateMapping(path);
+                    try {
+                        Files.deleteIfExists(path);
+                    } catch (IOException e) {
+                        completeRelease(relativePath, false);
+                        throw e;
+                    }
+                    completeRelease(relativePath, true);
+                    parents.add(path.getParent());
+                }
+                result.addSuccess(fileName);
+            } catch (Exception e) {
+                log.error("删除文件{}时发生错误！", fileName);
+                result.addFailure(fileName, e.toString());
+            }
+        }
+
+        /**
+         * 清理删除文件后留下的空日期目录，只删除日期目录这一级，自定义目录和桶目录保留
+         * 当天的日期目录可能正在写入新文件，不做清理
+         */
+        private void cleanEmptyDirs(Path root, Set<Path> dirs) {
+            String today = DayStamp.today().getDateDir();
+            for (Path dir : dirs) {
+                if (dir == null || !dir.startsWith(root) || dir.equals(root)) {
+                    continue;
+                }
+                String name = dir.getFileName().toString();
+                if (today.equals(name) || !DATE_DIR.matcher(name).matches()) {
+                    continue;
+                }
+                try {
+                    Files.delete(dir);
+                } catch (IOException e) {
+                    // 目录非空或已被删除
+                }
+            }
+        }
+
+        /**
+         * 删除文件时移除内存映射
+         */
+        private void invalidateMapping(Path path) {
+            if (mappedFileCache != null) {
+                mappedFileCache.invalidate(path.toAbsolutePath().normalize());
+            }
         }
 
         private boolean deleteFile(String fileName) {
+            String relativePath = Paths.get(properties.getBucketName(), fileName).toString();
+            if (!releaseReference(relativePath)) {
+                // 文件仍被其他上传引用
+                return true;
+            }
             // 拼接要删除的文件的绝对磁盘路径
-            int errNum = 1;
+            boolean deleted = false;
             try {
                 String filePath = Paths.get(properties.getEndpoint(), properties.getBucketName(), fileName).toString();
-                java.io.File rmFile = new java.io.File(filePath);
-                FileUtils.deleteQuietly(rmFile);
-                --errNum;
+                deleted = removeFile(new java.io.File(filePath));
             } catch (Exception e) {
                 log.error("删除文件{}时发生错误！", fileName);
             }
-            return errNum <= 0;
+            completeRelease(relativePath, deleted);
+            return deleted;
+        }
+
+        /**
+         * 删除文件，文件本来就不存在时也视为删除成功
+         */
+        private boolean removeFile(java.io.File rmFile) {
+            invalidateMapping(rmFile.toPath());
+            return FileUtils.deleteQuietly(rmFile) || !rmFile.exists();
         }
 
 
@@ -218,6 +564,12 @@ public class LocalAutoConfigure {
         @Override
         public InputStream getFileInputStream(String fileName) {
             try {
+                if (mappedFileCache != null) {
+                    InputStream in = mappedFileCache.open(Paths.get(properties.getEndpoint(), fileName).toAbsolutePath().normalize());
+                    if (in != null) {
+                        return in;
+                    }
+                }
                 return new FileInputStream(Paths.get(properties.getEndpoint(), fileName).toString());
             } catch (Exception e) {
                 e.printStackTrace();
@@ -226,6 +578,54 @@ public class LocalAutoConfigure {
             return null;
         }
 
+        /**
+         * 获取文件指定范围的流
+         * 直接定位到起始位置读取，不需要读取并丢弃前面的数据
+         * @param fileName 文件名称
+         * @param offset 起始位置
+         * @param length 读取长度，小于0时读取到文件末尾
+         * @return 文件流
+         */
+        @Override
+        public InputStream getFileInputStream(String fileName, long offset, long length) {
+            FileChannel channel = null;
+            try {
+                channel = FileChannel.open(Paths.get(properties.getEndpoint(), fileName), StandardOpenOption.READ);
+                channel.position(offset);
+                InputStream in = Channels.newInputStream(channel);
+                return length < 0 ? in : new BoundedInputStream(in, length);
+            } catch (Exception e) {
+                IOUtils.closeQuietly(channel);
+                e.printStackTrace();
+                log.error("读取文件流失败！");
+            }
+            return null;
+        }
+
+        /**
+         * 通过FileChannel.transferTo写入目标通道，Linux下使用sendfile，数据不经过用户态
+         * @param fileName 文件名称
+         * @param offset 起始位置
+         * @param length 写入长度，小于0时写入到文件末尾
+         * @param target 目标通道
+         * @return 写入的字节数
+         */
+        @Override
+        public long transferTo(String fileName, long offset, long length, WritableByteChannel target) throws IOException {
+            try (FileChannel channel = FileChannel.open(Paths.get(properties.getEndpoint(), fileName), StandardOpenOption.READ)) {
+                long end = length < 0 ? channel.size() : Math.min(channel.size(), offset + length);
+                long position = offset;
+                while (position < end) {
+                    long count = channel.transferTo(position, end - position, target);
+                    if (count <= 0) {
+                        break;
+                    }
+                    position += count;
+                }
+                return Math.max(position - offset, 0);
+            }
+        }
+
         /**
          * 判断文件是否存在
          * @param fileName 文件名称
@@ -241,5 +641,42 @@ public class LocalAutoConfigure {
                 return false;
             }
         }
+
+        /**
+         * 批量判断文件是否存在
+         * 按所在目录分组，每个目录只列出一次文件名称，不需要逐个访问文件
+         * @param fileNames 文件名称
+         * @return 文件名称 -> 是否存在
+         */
+        @Override
+        public Map<String, Boolean> fileExists(Collection<String> fileNames) {
+            Map<String, Boolean> exists = new LinkedHashMap<>(fileNames.size() * 4 / 3 + 1);
+            Map<Path, Set<String>> dirIndex = new HashMap<>();
+            for (String fileName : fileNames) {
+                Path path = Paths.get(properties.getEndpoint(), fileName);
+                Path dir = path.getParent();
+                Set<String> names = dirIndex.computeIfAbsent(dir, this::listFileNames);
+                exists.put(fileName, names.contains(path.getFileName().toString()));
+            }
+            return exists;
+        }
+
+        /**
+         * 列出目录下的文件名称，目录不存在时返回空集合
+         */
+        private Set<String> listFileNames(Path dir) {
+            if (dir == null || !Files.isDirectory(dir)) {
+                return Collections.emptySet();
+            }
+            Set<String> names = new HashSet<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path path : stream) {
+                    names.add(path.getFileName().toString());
+                }
+            } catch (IOException e) {
+                log.error("读取目录{}失败！", dir);
+            }
+            return names;
+        }
     }
 }
@@ -1,17 +1,29 @@
 package com.jie.file.storage;
 
+import com.jie.file.cache.DiskFileCache;
+import com.jie.file.cache.PresignedUrlCache;
+import com.jie.file.config.MinioMultipartClient;
+import com.jie.file.entity.ChunkUpload;
+import com.jie.file.entity.DeleteResult;
 import com.jie.file.entity.File;
 import com.jie.file.properties.FileServerProperties;
 import com.jie.file.strategy.FileStrategy;
 import com.jie.file.strategy.impl.AbstractFileStrategy;
-import com.jie.file.utils.DateUtils;
+import com.jie.file.utils.DayStamp;
 import com.jie.file.utils.StrPool;
 import io.minio.*;
 import io.minio.errors.*;
 import io.minio.http.Method;
 import io.minio.messages.DeleteError;
 import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import io.minio.messages.ListPartsResult;
+import io.minio.messages.Part;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -19,20 +31,42 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * minio存储策略
@@ -54,7 +88,7 @@ public class MinioAutoConfigure {
     /**
      * minio上传服务
      */
-    public static class MinioServiceImpl extends AbstractFileStrategy implements InitializingBean {
+    public static class MinioServiceImpl extends AbstractFileStrategy implements InitializingBean, DisposableBean {
 
         public MinioServiceImpl() {
             log.info("=========================Minio储策略！");
@@ -63,55 +97,279 @@ public class MinioAutoConfigure {
         @Override
         public void afterPropertiesSet() throws Exception {
             properties = fileProperties.getMinio();
+            multipartClient = new MinioMultipartClient(minioClient);
+            int poolSize = Math.max(properties.getUploadParallelism(), 1) + Math.max(properties.getDeleteParallelism(), 1)
+                    + Math.max(properties.getExistsParallelism(), 1);
+            executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    new CustomizableThreadFactory("minio-"));
+            executor.allowCoreThreadTimeOut(true);
+            if (Boolean.TRUE.equals(properties.getDiskCache())) {
+                diskFileCache = new DiskFileCache(getDiskCachePath(), properties.getDiskCacheSize());
+            }
+            if (properties.getUrlCacheSize() > 0) {
+                urlCache = new PresignedUrlCache(properties.getUrlCacheSize(), properties.getUrlExpiry() / 2);
+            }
+            existBucket(properties.getBucketName());
             log.info("=========================Minio储策略创建完成！");
         }
 
+        @Override
+        public void destroy() {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        /**
+         * 分片最小大小，最后一个分片除外
+         */
+        private final static long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+        /**
+         * 分片最大大小
+         */
+        private final static long MAX_PART_SIZE = Integer.MAX_VALUE;
+
+        /**
+         * 单次批量删除的最大对象数量
+         */
+        private final static int MAX_DELETE_BATCH = 1000;
+
+        /**
+         * 最大分片数量
+         */
+        private final static long MAX_PART_COUNT = 10000;
+
+        /**
+         * 批量判断文件是否存在时，同一目录下的文件数量达到该值时改为列出目录
+         */
+        private final static int LIST_EXISTS_THRESHOLD = 64;
+
+        /**
+         * 对象不存在的错误码
+         */
+        private final static String NO_SUCH_KEY = "NoSuchKey";
+
         @Autowired
         private MinioClient minioClient;
 
+        private MinioMultipartClient multipartClient;
+
+        /**
+         * 分片并行上传、批量删除、批量判断存在的线程池，线程数为三者并发数之和，超出时排队
+         */
+        private ThreadPoolExecutor executor;
+
+        /**
+         * 已确认存在的桶
+         */
+        private final Map<String, Boolean> bucketCache = new ConcurrentHashMap<>();
+
+        private final LongAdder bucketCacheHit = new LongAdder();
+
+        private final LongAdder bucketCacheMiss = new LongAdder();
+
+        /**
+         * 本地磁盘缓存，开启diskCache时创建
+         */
+        private DiskFileCache diskFileCache;
+
+        /**
+         * 文件访问地址缓存，urlCacheSize大于0时创建
+         */
+        private PresignedUrlCache urlCache;
+
+        /**
+         * 上传文件，失败时抛出异常，不返回指向不存在对象的文件信息
+         */
         @Override
-        public void uploadFile(File file, MultipartFile multipartFile) {
+        public void uploadFile(File file, MultipartFile multipartFile) throws IOException {
             String bucketName = properties.getBucketName();
 
             existBucket(properties.getBucketName());
 
-            //使用UUID为文件生成新文件名
-            String fileName = UUID.randomUUID().toString() + StrPool.DOT + file.getExt();
+            //生成新文件名
+            String fileName = generateFileName(file.getExt());
 
-            //日期目录
-            String relativePath = Paths.get(LocalDate.now().format(DateTimeFormatter.ofPattern(DateUtils.DEFAULT_DATE_FORMAT))).toString();
-            // 最终路径
-            relativePath = Paths.get(relativePath, fileName).toString().replaceAll(StrPool.BACK_SLASH_DOUBLE, StrPool.SLASH);
-            if (file.getDir() != null && !"".equals(file.getDir())) {
-                relativePath = Paths.get(file.getDir(), relativePath).toString().replaceAll(StrPool.BACK_SLASH_DOUBLE, StrPool.SLASH);
-            }
+            String relativePath = getRelativePath(file.getDir(), fileName);
 
             file.setFileName(fileName);
             file.setRelativePath(relativePath);
 
-            InputStream in = null;
-            try {
-                in = multipartFile.getInputStream();
-                minioClient.putObject(PutObjectArgs.builder()
-                        .bucket(bucketName)
-                        .object(relativePath)
-                        .stream(in, in.available(), -1)
-                        .contentType(multipartFile.getContentType())
-                        .build()
-                );
+            long size = multipartFile.getSize();
+            long partSize = getPartSize(size);
+            try (InputStream in = digestInputStream(multipartFile.getInputStream())) {
+                if (properties.getUploadParallelism() > 1 && size > partSize) {
+                    parallelPutObject(relativePath, file.getContextType(), in, size, partSize);
+                } else {
+                    minioClient.putObject(PutObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(relativePath)
+                            .stream(in, size, partSize)
+                            .contentType(file.getContextType())
+                            .build()
+                    );
+                }
+                setFileMd5(file, in);
+            } catch (IOException e) {
+                throw e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("上传文件" + relativePath + "时被中断");
+            } catch (ExecutionException e) {
+                throw new IOException("上传文件" + relativePath + "失败", e.getCause());
             } catch (Exception e) {
-                e.printStackTrace();
-            } finally {
-                if (in != null) {
+                throw new IOException("上传文件" + relativePath + "失败", e);
+            }
+        }
+
+        /**
+         * 获取分片大小，保证分片数量不超过minio的上限
+         *
+         * @param size 文件大小
+         * @return 分片大小
+         */
+        private long getPartSize(long size) {
+            long partSize = Math.max(properties.getPartSize(), MIN_PART_SIZE);
+            long minPartSize = (size + MAX_PART_COUNT - 1) / MAX_PART_COUNT;
+            if (partSize < minPartSize) {
+                partSize = (minPartSize + MIN_PART_SIZE - 1) / MIN_PART_SIZE * MIN_PART_SIZE;
+            }
+            return partSize;
+        }
+
+        /**
+         * 并行上传分片
+         * 按顺序读取分片并提交上传，同一时间最多有 uploadParallelism 个分片缓冲区在内存中
+         *
+         * @param objectName  对象名称
+         * @param contentType 文件类型
+         * @param in          文件流
+         * @param size        文件大小
+         * @param partSize    分片大小
+         */
+        private void parallelPutObject(String objectName, String contentType, InputStream in, long size, long partSize) throws Exception {
+            String bucketName = properties.getBucketName();
+            String uploadId = multipartClient.createMultipartUpload(bucketName, objectName, contentType);
+            int partCount = (int) ((size + partSize - 1) / partSize);
+            Semaphore permits = new Semaphore(properties.getUploadParallelism());
+            List<Future<Part>> futures = new ArrayList<>(partCount);
+            try {
+                for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+                    int length = (int) Math.min(partSize, size - (partNumber - 1) * partSize);
+                    permits.acquire();
+                    byte[] data;
                     try {
-                        in.close();
+                        data = new byte[length];
+                        IOUtils.readFully(in, data);
                     } catch (IOException e) {
-                        e.printStackTrace();
+                        permits.release();
+                        throw e;
                     }
+                    int number = partNumber;
+                    futures.add(executor.submit(() -> {
+                        try {
+                            return new Part(number, multipartClient.uploadPart(bucketName, objectName, uploadId, number, data, length));
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                }
+                Part[] parts = new Part[partCount];
+                for (int i = 0; i < partCount; i++) {
+                    parts[i] = futures.get(i).get();
                 }
+                multipartClient.completeMultipartUpload(bucketName, objectName, uploadId, parts);
+            } catch (Exception e) {
+                for (Future<Part> future : futures) {
+                    future.cancel(true);
+                }
+                try {
+                    multipartClient.abortMultipartUpload(bucketName, objectName, uploadId);
+                } catch (Exception ex) {
+                    log.error("取消分片上传{}时发生错误！", objectName);
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * 获取对象的相对路径
+         *
+         * @param dir      自定义的文件目录
+         * @param fileName 文件名
+         * @return 相对路径
+         */
+        private String getRelativePath(String dir, String fileName) {
+            //日期目录
+            String relativePath = DayStamp.today().getDateDir();
+            // 最终路径
+            relativePath = Paths.get(relativePath, fileName).toString().replaceAll(StrPool.BACK_SLASH_DOUBLE, StrPool.SLASH);
+            if (dir != null && !"".equals(dir)) {
+                relativePath = Paths.get(dir, relativePath).toString().replaceAll(StrPool.BACK_SLASH_DOUBLE, StrPool.SLASH);
             }
+            return relativePath;
         }
 
+        /**
+         * 使用minio原生分片上传，分片直接上传到minio，本地只保存任务元数据
+         */
+        @Override
+        protected void initChunkFile(ChunkUpload chunkUpload) throws Exception {
+            if (chunkUpload.getChunkCount() > 1 && chunkUpload.getChunkSize() < MIN_PART_SIZE) {
+                throw new Exception("分片大小不能小于5MB");
+            }
+            if (chunkUpload.getChunkSize() > MAX_PART_SIZE) {
+                throw new Exception("分片大小不能超过2GB");
+            }
+            existBucket(properties.getBucketName());
+            String fileName = generateFileName(FilenameUtils.getExtension(chunkUpload.getSubmittedFileName()));
+            String relativePath = getRelativePath(chunkUpload.getDir(), fileName);
+            chunkUpload.setFileName(fileName);
+            chunkUpload.setRelativePath(relativePath);
+            chunkUpload.setStorageUploadId(multipartClient.createMultipartUpload(properties.getBucketName(), relativePath, chunkUpload.getContextType()));
+        }
+
+        @Override
+        protected void uploadChunkFile(ChunkUpload chunkUpload, int chunkNumber, MultipartFile chunk) throws Exception {
+            try (BufferedInputStream in = new BufferedInputStream(chunk.getInputStream())) {
+                multipartClient.uploadPart(properties.getBucketName(), chunkUpload.getRelativePath(), chunkUpload.getStorageUploadId(),
+                        chunkNumber, in, (int) chunk.getSize());
+            }
+        }
+
+        @Override
+        protected List<Integer> listChunkFiles(ChunkUpload chunkUpload) throws Exception {
+            List<Integer> chunks = new ArrayList<>();
+            for (Part part : listParts(chunkUpload)) {
+                chunks.add(part.partNumber());
+            }
+            return chunks;
+        }
+
+        @Override
+        protected void mergeChunkFile(ChunkUpload chunkUpload) throws Exception {
+            List<Part> parts = listParts(chunkUpload);
+            multipartClient.completeMultipartUpload(properties.getBucketName(), chunkUpload.getRelativePath(),
+                    chunkUpload.getStorageUploadId(), parts.toArray(new Part[0]));
+        }
+
+        @Override
+        protected void abortChunkFile(ChunkUpload chunkUpload) throws Exception {
+            multipartClient.abortMultipartUpload(properties.getBucketName(), chunkUpload.getRelativePath(), chunkUpload.getStorageUploadId());
+        }
+
+        private List<Part> listParts(ChunkUpload chunkUpload) throws Exception {
+            List<Part> parts = new ArrayList<>();
+            int marker = 0;
+            ListPartsResult result;
+            do {
+                result = multipartClient.listParts(properties.getBucketName(), chunkUpload.getRelativePath(), chunkUpload.getStorageUploadId(), marker);
+                parts.addAll(result.partList());
+                marker = result.nextPartNumberMarker();
+            } while (result.isTruncated());
+            return parts;
+        }
 
         @Override
         public boolean delete(String fileName) {
@@ -129,24 +387,12 @@ public class MinioAutoConfigure {
                 log.error("删除文件集合为空！");
                 return false;
             }
-            int errNum = fileNames.length;
-            List<DeleteObject> deleteObjectList = new CopyOnWriteArrayList<>();
-            for (String fileName : fileNames) {
-                deleteObjectList.add(new DeleteObject(fileName));
-            }
-            errNum = 0;
             try {
-                final Iterable<Result<DeleteError>> results = minioClient.removeObjects(RemoveObjectsArgs.builder().bucket(properties.getBucketName()).objects(deleteObjectList).build());
-                for (Result<DeleteError> result : results) {
-                    final DeleteError deleteError = result.get();
-                    log.error("删除文件{}时发生错误！", deleteError.objectName());
-                    log.error(deleteError.message());
-                    ++errNum;
-                }
+                return batchDelete(Arrays.asList(fileNames)).isSuccess();
             } catch (Exception e) {
                 e.printStackTrace();
+                return false;
             }
-            return errNum <= 0;
         }
 
 
@@ -165,40 +411,173 @@ public class MinioAutoConfigure {
                 log.error("删除文件集合为空！");
                 return false;
             }
-            int errNum = listFile.size();
-            List<DeleteObject> deleteObjectList = new CopyOnWriteArrayList<>();
-            for (File file : listFile) {
-                deleteObjectList.add(new DeleteObject(file.getRelativePath()));
+            try {
+                return batchDeleteFiles(listFile).isSuccess();
+            } catch (Exception e) {
+                e.printStackTrace();
+                return false;
             }
-            errNum = 0;
+        }
+
+        /**
+         * 批量删除对象，可传入 Stream::iterator 流式删除
+         */
+        @Override
+        public DeleteResult batchDelete(Iterable<String> fileNames) throws InterruptedException {
+            return removeObjects(fileNames.iterator());
+        }
+
+        /**
+         * 批量删除对象，可传入 Stream::iterator 流式删除
+         */
+        @Override
+        public DeleteResult batchDeleteFiles(Iterable<File> files) throws InterruptedException {
+            Iterator<File> iterator = files.iterator();
+            return removeObjects(new Iterator<String>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public String next() {
+                    return iterator.next().getRelativePath();
+                }
+            });
+        }
+
+        /**
+         * 分批删除对象
+         * 每批最多1000个对象，同时进行的批次不超过 deleteParallelism，对象名称边读取边提交，不会一次性全部加载
+         *
+         * @param objectNames 对象名称
+         * @return 删除结果
+         */
+        private DeleteResult removeObjects(Iterator<String> objectNames) throws InterruptedException {
+            DeleteResult result = new DeleteResult();
+            int parallelism = Math.max(properties.getDeleteParallelism(), 1);
+            Semaphore permits = new Semaphore(parallelism);
+            while (objectNames.hasNext()) {
+                List<String> batch = new ArrayList<>(MAX_DELETE_BATCH);
+                while (objectNames.hasNext() && batch.size() < MAX_DELETE_BATCH) {
+                    batch.add(objectNames.next());
+                }
+                permits.acquire();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            removeBatch(batch, result);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    for (String objectName : batch) {
+                        result.addFailure(objectName, "删除线程池已关闭");
+                    }
+                }
+            }
+            // 等待所有批次完成
+            permits.acquire(parallelism);
+            permits.release(parallelism);
+            return result;
+        }
+
+        private void removeBatch(List<String> objectNames, DeleteResult result) {
+            List<String> batch = new ArrayList<>(objectNames.size());
+            for (String objectName : objectNames) {
+                if (releaseReference(objectName)) {
+                    batch.add(objectName);
+                } else {
+                    // 文件仍被其他上传引用
+                    result.addSuccess(objectName);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            batch.forEach(this::invalidateCache);
+            List<DeleteObject> deleteObjects = new ArrayList<>(batch.size());
+            for (String objectName : batch) {
+                deleteObjects.add(new DeleteObject(objectName));
+            }
+            Set<String> failed = new HashSet<>();
             try {
-                final Iterable<Result<DeleteError>> results = minioClient.removeObjects(RemoveObjectsArgs.builder().bucket(properties.getBucketName()).objects(deleteObjectList).build());
-                for (Result<DeleteError> result : results) {
-                    final DeleteError deleteError = result.get();
+                Iterable<Result<DeleteError>> results = minioClient.removeObjects(RemoveObjectsArgs.builder().bucket(properties.getBucketName()).objects(deleteObjects).build());
+                for (Result<DeleteError> item : results) {
+                    DeleteError deleteError = item.get();
                     log.error("删除文件{}时发生错误！", deleteError.objectName());
-                    log.error(deleteError.message());
-                    ++errNum;
+                    failed.add(deleteError.objectName());
+                    result.addFailure(deleteError.objectName(), deleteError.code() + StrPool.COLON + deleteError.message());
                 }
             } catch (Exception e) {
-                e.printStackTrace();
+                log.error("批量删除文件时发生错误！", e);
+                for (String objectName : batch) {
+                    if (failed.add(objectName)) {
+                        result.addFailure(objectName, e.toString());
+                    }
+                }
+            }
+            for (String objectName : batch) {
+                boolean deleted = !failed.contains(objectName);
+                completeRelease(objectName, deleted);
+                if (deleted) {
+                    result.addSuccess(objectName);
+                }
             }
-            return errNum <= 0;
         }
 
 
         private boolean deleteFile(String fileName) {
-            int errNum = 1;
+            if (!releaseReference(fileName)) {
+                // 文件仍被其他上传引用
+                return true;
+            }
+            invalidateCache(fileName);
+            boolean deleted = false;
             try {
                 minioClient.removeObject(RemoveObjectArgs.builder().bucket(properties.getBucketName()).object(fileName).build());
-                --errNum;
+                deleted = true;
             } catch (Exception e) {
                 log.error("删除文件失败");
                 e.printStackTrace();
             }
-            return errNum <= 0;
+            completeRelease(fileName, deleted);
+            return deleted;
         }
 
 
+        /**
+         * 删除文件时移除磁盘缓存和访问地址缓存
+         */
+        private void invalidateCache(String fileName) {
+            if (diskFileCache != null) {
+                diskFileCache.invalidate(fileName);
+            }
+            if (urlCache != null) {
+                urlCache.invalidate(fileName);
+            }
+        }
+
+        /**
+         * 磁盘缓存目录
+         */
+        private String getDiskCachePath() {
+            String path = properties.getDiskCachePath();
+            if (path != null && !"".equals(path)) {
+                return path;
+            }
+            if (fileProperties.getStoragePath() != null && !"".equals(fileProperties.getStoragePath())) {
+                return Paths.get(fileProperties.getStoragePath(), "cache").toString();
+            }
+            return Paths.get(System.getProperty("user.home"), ".jie-file", "cache").toString();
+        }
+
+        public DiskFileCache getDiskFileCache() {
+            return diskFileCache;
+        }
+
         /**
          * 获取文件访问地址
          *
@@ -211,9 +590,45 @@ public class MinioAutoConfigure {
             if (fileName != null && !fileName.contains(FILE_SPLIT)) {
                 throw new Exception("上传文件名称缺少后缀");
             }
-            GetPresignedObjectUrlArgs build = GetPresignedObjectUrlArgs.builder().bucket(properties.getBucketName()).object(fileName).method(Method.GET).build();
+            String url = urlCache == null ? null : urlCache.get(fileName);
+            return url != null ? url : presign(fileName);
+        }
+
+        /**
+         * 批量获取文件访问地址，只对未缓存的文件签名
+         *
+         * @param fileNames 文件名称
+         * @return 文件名称 -> 文件访问地址
+         */
+        @Override
+        public Map<String, String> getFileUrls(Collection<String> fileNames) throws Exception {
+            Map<String, String> urls = new LinkedHashMap<>(fileNames.size() * 4 / 3 + 1);
+            for (String fileName : fileNames) {
+                if (fileName != null && !fileName.contains(FILE_SPLIT)) {
+                    throw new Exception("上传文件名称缺少后缀");
+                }
+                urls.put(fileName, urlCache == null ? null : urlCache.get(fileName));
+            }
+            for (Map.Entry<String, String> entry : urls.entrySet()) {
+                if (entry.getValue() == null) {
+                    entry.setValue(presign(entry.getKey()));
+                }
+            }
+            return urls;
+        }
+
+        /**
+         * 签名文件访问地址并缓存，签名失败时返回空字符串
+         */
+        private String presign(String fileName) {
+            GetPresignedObjectUrlArgs build = GetPresignedObjectUrlArgs.builder().bucket(properties.getBucketName()).object(fileName)
+                    .method(Method.GET).expiry(properties.getUrlExpiry()).build();
             try {
-                return minioClient.getPresignedObjectUrl(build);
+                String url = minioClient.getPresignedObjectUrl(build);
+                if (urlCache != null) {
+                    urlCache.put(fileName, url);
+                }
+                return url;
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -228,6 +643,18 @@ public class MinioAutoConfigure {
         @Override
         public InputStream getFileInputStream(String fileName) {
             try {
+                if (diskFileCache != null) {
+                    Path path = diskFileCache.get(fileName);
+                    if (path != null) {
+                        try {
+                            return Files.newInputStream(path);
+                        } catch (NoSuchFileException e) {
+                            // 缓存文件已被淘汰，从minio读取
+                        }
+                    }
+                    return diskFileCache.cacheOnRead(fileName,
+                            minioClient.getObject(GetObjectArgs.builder().bucket(properties.getBucketName()).object(fileName).build()));
+                }
                 return minioClient.getObject(GetObjectArgs.builder().bucket(properties.getBucketName()).object(fileName).build());
             } catch (Exception e) {
                 e.printStackTrace();
@@ -236,6 +663,40 @@ public class MinioAutoConfigure {
             return null;
         }
 
+        /**
+         * 获取文件指定范围的流
+         * 通过Range请求只下载需要的部分
+         * @param fileName 文件名称
+         * @param offset 起始位置
+         * @param length 读取长度，小于0时读取到文件末尾
+         * @return 文件流
+         */
+        @Override
+        public InputStream getFileInputStream(String fileName, long offset, long length) {
+            try {
+                Path path = diskFileCache == null ? null : diskFileCache.get(fileName);
+                if (path != null) {
+                    try {
+                        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                        channel.position(offset);
+                        InputStream in = Channels.newInputStream(channel);
+                        return length < 0 ? in : new BoundedInputStream(in, length);
+                    } catch (NoSuchFileException e) {
+                        // 缓存文件已被淘汰，从minio读取
+                    }
+                }
+                GetObjectArgs.Builder builder = GetObjectArgs.builder().bucket(properties.getBucketName()).object(fileName).offset(offset);
+                if (length >= 0) {
+                    builder.length(length);
+                }
+                return minioClient.getObject(builder.build());
+            } catch (Exception e) {
+                e.printStackTrace();
+                log.error("读取文件流失败！");
+            }
+            return null;
+        }
+
         /**
          * 判断文件是否存在
          * @param fileName 文件名称
@@ -246,22 +707,139 @@ public class MinioAutoConfigure {
             try {
                 this.minioClient.statObject(StatObjectArgs.builder().bucket(properties.getBucketName()).object(fileName).build());
                 return true;
+            } catch (ErrorResponseException e) {
+                if (!NO_SUCH_KEY.equals(e.errorResponse().code())) {
+                    log.error("获取文件{}信息失败！{}", fileName, e.toString());
+                }
+                return false;
             } catch (Exception e) {
-                e.printStackTrace();
+                log.error("获取文件{}信息失败！{}", fileName, e.toString());
                 return false;
             }
         }
 
+        /**
+         * 批量判断文件是否存在
+         * 按所在目录分组，文件数量达到 LIST_EXISTS_THRESHOLD 的目录列出目录下的对象判断，
+         * 其余文件并发查询对象信息，同时进行的请求不超过 existsParallelism
+         * @param fileNames 文件名称
+         * @return 文件名称 -> 是否存在
+         * @throws IllegalStateException 等待查询时线程被中断，中断标志会被保留
+         */
+        @Override
+        public Map<String, Boolean> fileExists(Collection<String> fileNames) {
+            Map<String, List<String>> groups = new LinkedHashMap<>();
+            for (String fileName : fileNames) {
+                if (fileName != null) {
+                    groups.computeIfAbsent(fileName.substring(0, fileName.lastIndexOf(StrPool.SLASH) + 1), key -> new ArrayList<>()).add(fileName);
+                }
+            }
+            Set<String> exists = ConcurrentHashMap.newKeySet();
+            int parallelism = Math.max(properties.getExistsParallelism(), 1);
+            Semaphore permits = new Semaphore(parallelism);
+            try {
+                for (Map.Entry<String, List<String>> group : groups.entrySet()) {
+                    if (group.getValue().size() >= LIST_EXISTS_THRESHOLD) {
+                        submit(permits, () -> listExists(group.getKey(), group.getValue(), exists));
+                    } else {
+                        for (String fileName : group.getValue()) {
+                            submit(permits, () -> {
+                                if (fileExists(fileName)) {
+                                    exists.add(fileName);
+                                }
+                            });
+                        }
+                    }
+                }
+                // 等待所有查询完成
+                permits.acquire(parallelism);
+                permits.release(parallelism);
+            } catch (InterruptedException e) {
+                // 未查询完的文件状态未知，不能当作不存在返回
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("批量判断文件是否存在时被中断！", e);
+            }
+            Map<String, Boolean> result = new LinkedHashMap<>(fileNames.size() * 4 / 3 + 1);
+            for (String fileName : fileNames) {
+                result.put(fileName, fileName != null && exists.contains(fileName));
+            }
+            return result;
+        }
 
-        public void existBucket(String name) {
+        /**
+         * 列出目录下的对象，找到所有要判断的文件后提前结束，列出失败时逐个查询
+         */
+        private void listExists(String prefix, List<String> fileNames, Set<String> exists) {
+            Set<String> remaining = new HashSet<>(fileNames);
             try {
-                boolean exists = minioClient.bucketExists(BucketExistsArgs.builder().bucket(name).build());
-                if (!exists) {
-                    minioClient.makeBucket(MakeBucketArgs.builder().bucket(name).build());
+                Iterable<Result<Item>> items = minioClient.listObjects(ListObjectsArgs.builder()
+                        .bucket(properties.getBucketName()).prefix(prefix).recursive(false).build());
+                for (Result<Item> item : items) {
+                    String objectName = item.get().objectName();
+                    if (remaining.remove(objectName)) {
+                        exists.add(objectName);
+                        if (remaining.isEmpty()) {
+                            return;
+                        }
+                    }
                 }
             } catch (Exception e) {
-                e.printStackTrace();
+                log.error("列出目录{}失败，逐个查询文件！{}", prefix, e.toString());
+                for (String fileName : remaining) {
+                    if (fileExists(fileName)) {
+                        exists.add(fileName);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 在线程池中执行任务，同时进行的任务数量受permits限制，线程池已关闭时在当前线程执行
+         */
+        private void submit(Semaphore permits, Runnable task) throws InterruptedException {
+            permits.acquire();
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            }
+        }
+
+
+        /**
+         * 判断桶是否存在，不存在则创建
+         * 已确认存在的桶会被缓存，避免每次上传都请求minio
+         *
+         * @param name 桶名称
+         */
+        public void existBucket(String name) {
+            if (bucketCache.containsKey(name)) {
+                bucketCacheHit.increment();
+                return;
             }
+            bucketCacheMiss.increment();
+            bucketCache.computeIfAbsent(name, key -> {
+                try {
+                    boolean exists = minioClient.bucketExists(BucketExistsArgs.builder().bucket(key).build());
+                    if (!exists) {
+                        minioClient.makeBucket(MakeBucketArgs.builder().bucket(key).build());
+                    }
+                    return Boolean.TRUE;
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    return null;
+                }
+            });
         }
 
         public Boolean makeBucket(String bucketName) {
@@ -273,6 +851,7 @@ public class MinioAutoConfigure {
                 e.printStackTrace();
                 return false;
             }
+            bucketCache.put(bucketName, Boolean.TRUE);
             return true;
         }
 
@@ -285,7 +864,22 @@ public class MinioAutoConfigure {
                 e.printStackTrace();
                 return false;
             }
+            bucketCache.remove(bucketName);
             return true;
         }
+
+        /**
+         * 桶缓存命中次数
+         */
+        public long getBucketCacheHitCount() {
+            return bucketCacheHit.sum();
+        }
+
+        /**
+         * 桶缓存未命中次数
+         */
+        public long getBucketCacheMissCount() {
+            return bucketCacheMiss.sum();
+        }
     }
 }
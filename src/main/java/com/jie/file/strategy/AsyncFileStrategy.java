@@ -0,0 +1,92 @@
+package com.jie.file.strategy;
+
+import com.jie.file.entity.File;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步文件上传接口
+ * 在独立的线程池中执行 {@link FileStrategy} 的阻塞操作，请求线程不再等待存储端的网络IO
+ *
+ * @author jie
+ */
+public interface AsyncFileStrategy {
+
+    /**
+     * 异步上传文件
+     * 上传文件的临时文件会在请求结束时被容器清理，需要在请求结束前等待结果
+     *
+     * @param file 上传的文件
+     * @return 文件对象
+     */
+    CompletableFuture<File> uploadAsync(MultipartFile file);
+
+    /**
+     * 异步上传文件
+     * 上传文件的临时文件会在请求结束时被容器清理，需要在请求结束前等待结果
+     *
+     * @param file 上传的文件
+     * @param dir  上传的目录
+     * @return 文件对象
+     */
+    CompletableFuture<File> uploadAsync(MultipartFile file, String dir);
+
+    /**
+     * 异步删除单个文件
+     *
+     * @param fileName 要删除的单个文件
+     * @return 是否删除成功
+     */
+    CompletableFuture<Boolean> deleteAsync(String fileName);
+
+    /**
+     * 异步删除多个文件
+     *
+     * @param fileNames 要删除的文件集合
+     * @return 是否删除成功
+     */
+    CompletableFuture<Boolean> deleteAsync(String... fileNames);
+
+    /**
+     * 异步删除单个文件
+     *
+     * @param file 要删除的单个文件
+     * @return 是否删除成功
+     */
+    CompletableFuture<Boolean> deleteAsync(File file);
+
+    /**
+     * 异步删除多个文件
+     *
+     * @param listFile 要删除的文件集合
+     * @return 是否删除成功
+     */
+    CompletableFuture<Boolean> deleteAsync(List<File> listFile);
+
+    /**
+     * 异步获取文件访问路径
+     *
+     * @param fileName 文件名称
+     * @return 文件访问路径
+     */
+    CompletableFuture<String> getFileUrlAsync(String fileName);
+
+    /**
+     * 异步获取文件流
+     *
+     * @param fileName 文件名称
+     * @return 文件流
+     */
+    CompletableFuture<InputStream> getFileInputStreamAsync(String fileName);
+
+    /**
+     * 异步判断文件是否存在
+     *
+     * @param fileName 文件名称
+     * @return 文件是否存在
+     */
+    CompletableFuture<Boolean> fileExistsAsync(String fileName);
+}
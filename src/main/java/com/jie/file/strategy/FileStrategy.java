@@ -1,12 +1,17 @@
 package com.jie.file.strategy;
 
+import com.jie.file.entity.ChunkUpload;
+import com.jie.file.entity.DeleteResult;
 import com.jie.file.entity.File;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 文件上传顶级接口
@@ -35,6 +40,19 @@ public interface FileStrategy {
      */
     File upload(MultipartFile file, String dir) throws Exception;
 
+    /**
+     * 秒传
+     * 客户端先计算文件md5，内容相同的文件已存在时直接返回文件对象，不需要再上传文件内容
+     *
+     * @param md5          文件md5
+     * @param size         文件大小
+     * @param originalName 原始文件名
+     * @param dir          上传的目录
+     * @return 文件对象，文件不存在时返回null，需要正常上传
+     * @throws Exception 异常
+     */
+    File tryInstantUpload(String md5, long size, String originalName, String dir) throws Exception;
+
     /**
      * 删除单个文件
      *
@@ -72,6 +90,24 @@ public interface FileStrategy {
      */
     boolean delete(List<File> listFile) throws Exception;
 
+    /**
+     * 批量删除文件，返回每个文件的删除结果
+     *
+     * @param fileNames 要删除的文件名称
+     * @return 删除结果
+     * @throws Exception 异常
+     */
+    DeleteResult batchDelete(Iterable<String> fileNames) throws Exception;
+
+    /**
+     * 批量删除文件，返回每个文件的删除结果
+     *
+     * @param files 要删除的文件
+     * @return 删除结果，以文件的相对路径为键
+     * @throws Exception 异常
+     */
+    DeleteResult batchDeleteFiles(Iterable<File> files) throws Exception;
+
     /**
      * 获取文件访问路径
      *
@@ -81,6 +117,15 @@ public interface FileStrategy {
      */
     String getFileUrl(String fileName) throws Exception;
 
+    /**
+     * 批量获取文件访问路径
+     *
+     * @param fileNames 文件名称
+     * @return 文件名称 -> 文件访问路径，顺序与传入的文件名称一致
+     * @throws Exception 异常
+     */
+    Map<String, String> getFileUrls(Collection<String> fileNames) throws Exception;
+
 
     /**
      * 获取文件流
@@ -89,10 +134,96 @@ public interface FileStrategy {
      */
     InputStream getFileInputStream(String fileName);
 
+    /**
+     * 获取文件指定范围的流，用于断点下载、视频拖动等场景
+     * @param fileName 文件名称
+     * @param offset 起始位置
+     * @param length 读取长度，小于0时读取到文件末尾
+     * @return 文件流
+     */
+    InputStream getFileInputStream(String fileName, long offset, long length);
+
+    /**
+     * 将文件直接写入目标通道，不经过调用方的缓冲区
+     * @param fileName 文件名称
+     * @param target 目标通道，如 Channels.newChannel(response.getOutputStream())
+     * @return 写入的字节数
+     * @throws Exception 异常
+     */
+    long transferTo(String fileName, WritableByteChannel target) throws Exception;
+
+    /**
+     * 将文件指定范围写入目标通道
+     * @param fileName 文件名称
+     * @param offset 起始位置
+     * @param length 写入长度，小于0时写入到文件末尾
+     * @param target 目标通道
+     * @return 写入的字节数
+     * @throws Exception 异常
+     */
+    long transferTo(String fileName, long offset, long length, WritableByteChannel target) throws Exception;
+
     /**
      * 判断文件是否存在
      * @param fileName 文件名称
      * @return 文件是否存在
      */
     boolean fileExists(String fileName);
+
+    /**
+     * 批量判断文件是否存在
+     * @param fileNames 文件名称
+     * @return 文件名称 -> 是否存在，顺序与传入的文件名称一致
+     */
+    Map<String, Boolean> fileExists(Collection<String> fileNames);
+
+    /**
+     * 初始化分片上传
+     *
+     * @param originalFilename 原始文件名
+     * @param contentType      文件类型
+     * @param size             文件大小
+     * @param chunkSize        分片大小
+     * @param dir              上传的目录
+     * @return 分片上传任务
+     * @throws Exception 异常
+     */
+    ChunkUpload initChunkUpload(String originalFilename, String contentType, long size, long chunkSize, String dir) throws Exception;
+
+    /**
+     * 上传单个分片，同一任务的分片可以并行上传，失败的分片重新上传即可
+     *
+     * @param uploadId    分片上传ID
+     * @param chunkNumber 分片序号，从1开始
+     * @param chunk       分片数据
+     * @throws Exception 异常
+     */
+    void uploadChunk(String uploadId, int chunkNumber, MultipartFile chunk) throws Exception;
+
+    /**
+     * 获取已上传的分片序号，用于断点续传
+     *
+     * @param uploadId 分片上传ID
+     * @return 已上传的分片序号
+     * @throws Exception 异常
+     */
+    List<Integer> listChunks(String uploadId) throws Exception;
+
+    /**
+     * 合并分片
+     *
+     * @param uploadId 分片上传ID
+     * @return 文件对象
+     * @throws Exception 异常
+     */
+    File mergeChunks(String uploadId) throws Exception;
+
+    /**
+     * 取消分片上传，清理已上传的分片
+     *
+     * @param uploadId 分片上传ID
+     * @return 是否取消成功
+     * @throws Exception 异常
+     */
+    boolean abortChunkUpload(String uploadId) throws Exception;
 }
@@ -1,18 +1,46 @@
 package com.jie.file.strategy.impl;
 
+import com.jie.file.admission.UploadAdmissionController;
+import com.jie.file.dedup.FileDedupIndex;
+import com.jie.file.entity.ChunkUpload;
+import com.jie.file.entity.DeleteResult;
 import com.jie.file.entity.File;
-import com.jie.file.enumeration.IconType;
+import com.jie.file.exception.UploadRejectedException;
+import com.jie.file.naming.FileNameGenerator;
+import com.jie.file.naming.UuidV7FileNameGenerator;
 import com.jie.file.properties.FileServerProperties;
 import com.jie.file.strategy.FileStrategy;
-import com.jie.file.utils.DateUtils;
+import com.jie.file.utils.ByteBufferPool;
+import com.jie.file.utils.ContentTypeSniffer;
+import com.jie.file.utils.DayStamp;
 import com.jie.file.utils.FileDataTypeUtil;
+import com.jie.file.utils.StrPool;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 /**
  * @author jie
@@ -27,6 +55,48 @@ public abstract class AbstractFileStrategy implements FileStrategy {
 
     protected final static String FILE_SPLIT = ".";
 
+    private final static char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final static Pattern MD5_PATTERN = Pattern.compile("[0-9a-fA-F]{32}");
+
+    /**
+     * 文件去重索引，开启去重时注入
+     */
+    @Autowired(required = false)
+    protected FileDedupIndex dedupIndex;
+
+    /**
+     * 上传准入控制，开启admission时注入
+     */
+    @Autowired(required = false)
+    protected UploadAdmissionController admissionController;
+
+    /**
+     * 文件名生成器，未注入时使用UUID第7版
+     */
+    @Autowired(required = false)
+    protected FileNameGenerator fileNameGenerator = new UuidV7FileNameGenerator();
+
+    /**
+     * 分片上传任务元数据文件名
+     */
+    private final static String CHUNK_META = "chunk.properties";
+
+    /**
+     * 单个文件最大分片数量
+     */
+    private final static int MAX_CHUNK_COUNT = 10000;
+
+    /**
+     * 未实现分片上传的存储抛出的异常信息
+     */
+    private final static String CHUNK_NOT_SUPPORTED = "当前存储暂不支持分片上传";
+
+    /**
+     * 进行中的分片上传任务
+     */
+    private final Map<String, ChunkUpload> chunkUploads = new ConcurrentHashMap<>();
+
 
     @Override
     public File upload(MultipartFile multipartFile) throws Exception {
@@ -36,49 +106,238 @@ public abstract class AbstractFileStrategy implements FileStrategy {
     @Override
     public File upload(MultipartFile multipartFile, String dir) throws Exception {
 
+        UploadAdmissionController.Permit permit = admit(multipartFile.getSize());
         try {
-            //获得上传文件的原始文件名称
-            String originalFilename = multipartFile.getOriginalFilename();
-            if (originalFilename != null && !originalFilename.contains(FILE_SPLIT)) {
-                //文件名称中没有.，这是非法的，直接抛出异常
-                throw new Exception("上传文件名称缺少后缀");
-            }
-
-            // 封装一个File对象，在完成文件上传后需要将上传的文件信息保存到数据库
-            File file = File.builder()
-                    // 文件是否被删除
-                    .isDelete(false)
-                    // 文件大小
-                    .size(multipartFile.getSize())
-                    // 文件类型
-                    .contextType(multipartFile.getContentType())
-                    // 数据类型：
-                    .dataType(FileDataTypeUtil.getDataType(multipartFile.getContentType()))
-                    // 原始文件名称
-                    .submittedFileName(multipartFile.getOriginalFilename())
-                    // 后缀
-                    .ext(FilenameUtils.getExtension(multipartFile.getOriginalFilename()))
-                    .build();
-
-            // 设置文件的图标
-            file.setIcon(IconType.getIcon(file.getExt()).getIcon());
-
-            LocalDateTime now = LocalDateTime.now();
-
-            // 设置文件创建时间
-            file.setDir(dir);
-            file.setCreateMonth(DateUtils.formatAsYearMonthEn(now));
-            file.setCreateWeek(DateUtils.formatAsYearWeekEn(now));
-            file.setCreateDay(DateUtils.formatAsDateEn(now));
-
+            File file = buildFile(multipartFile.getOriginalFilename(), detectContentType(multipartFile), multipartFile.getSize(), dir);
             uploadFile(file, multipartFile);
+            deduplicate(file);
             return file;
         } catch (Exception e) {
             e.printStackTrace();
             throw new Exception("文件上传失败");
+        } finally {
+            releasePermit(permit);
         }
     }
 
+    /**
+     * 生成存储中的文件名
+     *
+     * @param ext 后缀，为空时不加后缀
+     * @return 文件名
+     */
+    protected String generateFileName(String ext) {
+        String name = fileNameGenerator.generate();
+        return ext == null || ext.isEmpty() ? name : name + StrPool.DOT + ext;
+    }
+
+    /**
+     * 根据文件头识别文件类型，只读取文件开头的 {@link ContentTypeSniffer#HEADER_SIZE} 个字节
+     * 未开启或无法识别时使用客户端上传的类型
+     *
+     * @param multipartFile 上传的文件
+     * @return 文件类型
+     */
+    protected String detectContentType(MultipartFile multipartFile) {
+        FileServerProperties.FileType fileType = fileProperties.getFileType();
+        if (fileType == null || !Boolean.TRUE.equals(fileType.getSniff()) || multipartFile.isEmpty()) {
+            return multipartFile.getContentType();
+        }
+        try (InputStream in = multipartFile.getInputStream()) {
+            String detected = ContentTypeSniffer.detect(in, multipartFile.getOriginalFilename());
+            if (detected != null) {
+                return detected;
+            }
+        } catch (IOException e) {
+            log.warn("识别文件类型失败：{}", e.toString());
+        }
+        return multipartFile.getContentType();
+    }
+
+    /**
+     * 申请上传额度，未开启准入控制时返回null
+     *
+     * @param size 文件大小
+     * @return 上传许可，上传完成后关闭
+     * @throws UploadRejectedException 没有空闲额度
+     */
+    protected UploadAdmissionController.Permit admit(long size) throws UploadRejectedException {
+        return admissionController == null ? null : admissionController.acquire(size);
+    }
+
+    /**
+     * 释放上传额度
+     *
+     * @param permit 上传许可，未开启准入控制时为null
+     */
+    protected void releasePermit(UploadAdmissionController.Permit permit) {
+        if (permit != null) {
+            permit.close();
+        }
+    }
+
+    /**
+     * 秒传，需要开启文件去重
+     */
+    @Override
+    public File tryInstantUpload(String md5, long size, String originalName, String dir) throws Exception {
+        if (dedupIndex == null || md5 == null || !MD5_PATTERN.matcher(md5).matches()) {
+            return null;
+        }
+        md5 = md5.toLowerCase();
+        String exist = dedupIndex.get(md5, size);
+        if (exist == null) {
+            return null;
+        }
+        if (!fileExists(exist)) {
+            log.warn("去重文件{}不存在，移除索引！", exist);
+            dedupIndex.remove(md5, size);
+            return null;
+        }
+        // 增加引用次数，期间文件被删除时放弃秒传
+        if (dedupIndex.putIfAbsent(md5, size, exist) == null) {
+            dedupIndex.release(exist);
+            return null;
+        }
+        String contentType = MediaTypeFactory.getMediaType(originalName).map(MediaType::toString).orElse(null);
+        File file = buildFile(originalName, contentType, size, dir);
+        file.setFileMd5(md5);
+        file.setRelativePath(exist);
+        file.setFileName(FilenameUtils.getName(exist));
+        return file;
+    }
+
+    /**
+     * 封装一个File对象，在完成文件上传后需要将上传的文件信息保存到数据库
+     *
+     * @param originalFilename 原始文件名称
+     * @param contentType      文件类型
+     * @param size             文件大小
+     * @param dir              上传的目录
+     * @return 文件对象
+     */
+    protected File buildFile(String originalFilename, String contentType, long size, String dir) throws Exception {
+        //获得上传文件的原始文件名称
+        if (originalFilename != null && !originalFilename.contains(FILE_SPLIT)) {
+            //文件名称中没有.，这是非法的，直接抛出异常
+            throw new Exception("上传文件名称缺少后缀");
+        }
+
+        File file = File.builder()
+                // 文件是否被删除
+                .isDelete(false)
+                // 文件大小
+                .size(size)
+                // 文件类型
+                .contextType(contentType)
+                // 数据类型：
+                .dataType(FileDataTypeUtil.getDataType(contentType))
+                // 原始文件名称
+                .submittedFileName(originalFilename)
+                // 后缀
+                .ext(FilenameUtils.getExtension(originalFilename))
+                .build();
+
+        // 设置文件的图标
+        file.setIcon(FileDataTypeUtil.getIcon(file.getExt()));
+
+        DayStamp today = DayStamp.today();
+
+        // 设置文件创建时间
+        file.setDir(dir);
+        file.setCreateMonth(today.getYearMonthEn());
+        file.setCreateWeek(today.getYearWeekEn());
+        file.setCreateDay(today.getDateEn());
+        return file;
+    }
+
+    /**
+     * 开启去重时包装上传流，在写入的同时计算md5，不需要额外读取一遍文件
+     *
+     * @param in 上传文件流
+     * @return 包装后的文件流
+     */
+    protected InputStream digestInputStream(InputStream in) throws NoSuchAlgorithmException {
+        if (dedupIndex == null) {
+            return in;
+        }
+        return new DigestInputStream(in, MessageDigest.getInstance("MD5"));
+    }
+
+    /**
+     * 文件流读取完成后设置文件md5
+     *
+     * @param file 文件对象
+     * @param in   {@link #digestInputStream(InputStream)} 返回的文件流
+     */
+    protected void setFileMd5(File file, InputStream in) {
+        if (in instanceof DigestInputStream) {
+            file.setFileMd5(encodeHex(((DigestInputStream) in).getMessageDigest().digest()));
+        }
+    }
+
+    /**
+     * 文件去重
+     * 相同内容的文件已存在时删除刚写入的文件，返回的文件对象指向已存在的文件
+     *
+     * @param file 已上传的文件
+     */
+    private void deduplicate(File file) throws Exception {
+        if (dedupIndex == null || file.getFileMd5() == null) {
+            return;
+        }
+        String exist = dedupIndex.putIfAbsent(file.getFileMd5(), file.getSize(), file.getRelativePath());
+        if (exist == null) {
+            return;
+        }
+        if (!fileExists(exist)) {
+            // 已存储的文件丢失，以新文件重新建立索引
+            log.warn("去重文件{}不存在，重新建立索引！", exist);
+            dedupIndex.remove(file.getFileMd5(), file.getSize());
+            dedupIndex.putIfAbsent(file.getFileMd5(), file.getSize(), file.getRelativePath());
+            return;
+        }
+        delete(File.builder().fileName(file.getFileName()).relativePath(file.getRelativePath()).build());
+        file.setRelativePath(exist);
+        file.setFileName(FilenameUtils.getName(exist));
+    }
+
+    /**
+     * 删除文件前释放去重引用
+     *
+     * @param relativePath 文件的相对路径
+     * @return 文件是否已无引用，可以删除
+     */
+    protected boolean releaseReference(String relativePath) {
+        return dedupIndex == null || relativePath == null || dedupIndex.release(relativePath);
+    }
+
+    /**
+     * 释放引用后删除文件成功或失败时调用，失败时恢复引用，避免重试删除时引用次数被重复扣减
+     *
+     * @param relativePath 文件的相对路径
+     * @param deleted      文件是否已删除
+     */
+    protected void completeRelease(String relativePath, boolean deleted) {
+        if (dedupIndex == null || relativePath == null) {
+            return;
+        }
+        if (deleted) {
+            dedupIndex.commitRelease(relativePath);
+        } else {
+            dedupIndex.rollbackRelease(relativePath);
+        }
+    }
+
+    protected static String encodeHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0x0F];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
     /**
      * 文件上传,需要子类实现
      *
@@ -87,6 +346,291 @@ public abstract class AbstractFileStrategy implements FileStrategy {
      */
     public abstract void uploadFile(File file, MultipartFile multipartFile) throws IOException;
 
+    /**
+     * 逐个判断文件是否存在，子类可以覆盖为批量实现
+     */
+    @Override
+    public Map<String, Boolean> fileExists(Collection<String> fileNames) {
+        Map<String, Boolean> exists = new LinkedHashMap<>(fileNames.size() * 4 / 3 + 1);
+        for (String fileName : fileNames) {
+            exists.put(fileName, fileExists(fileName));
+        }
+        return exists;
+    }
+
+    /**
+     * 逐个获取文件访问路径，子类可以覆盖为批量实现
+     */
+    @Override
+    public Map<String, String> getFileUrls(Collection<String> fileNames) throws Exception {
+        Map<String, String> urls = new LinkedHashMap<>(fileNames.size() * 4 / 3 + 1);
+        for (String fileName : fileNames) {
+            urls.put(fileName, getFileUrl(fileName));
+        }
+        return urls;
+    }
+
+    /**
+     * 逐个删除文件，子类可以覆盖为批量或并行删除
+     */
+    @Override
+    public DeleteResult batchDelete(Iterable<String> fileNames) throws Exception {
+        DeleteResult result = new DeleteResult();
+        for (String fileName : fileNames) {
+            if (delete(fileName)) {
+                result.addSuccess(fileName);
+            } else {
+                result.addFailure(fileName, "删除失败");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 逐个删除文件，子类可以覆盖为批量或并行删除
+     */
+    @Override
+    public DeleteResult batchDeleteFiles(Iterable<File> files) throws Exception {
+        DeleteResult result = new DeleteResult();
+        for (File file : files) {
+            if (delete(file)) {
+                result.addSuccess(file.getRelativePath());
+            } else {
+                result.addFailure(file.getRelativePath(), "删除失败");
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ChunkUpload initChunkUpload(String originalFilename, String contentType, long size, long chunkSize, String dir) throws Exception {
+        if (originalFilename == null || !originalFilename.contains(FILE_SPLIT)) {
+            throw new Exception("上传文件名称缺少后缀");
+        }
+        if (size <= 0 || chunkSize <= 0) {
+            throw new Exception("文件大小或分片大小不正确");
+        }
+        long chunkCount = (size + chunkSize - 1) / chunkSize;
+        if (chunkCount > MAX_CHUNK_COUNT) {
+            throw new Exception("分片数量不能超过" + MAX_CHUNK_COUNT);
+        }
+        ChunkUpload chunkUpload = ChunkUpload.builder()
+                .uploadId(UUID.randomUUID().toString().replace("-", ""))
+                .submittedFileName(originalFilename)
+                .contextType(contentType)
+                .dir(dir)
+                .size(size)
+                .chunkSize(chunkSize)
+                .chunkCount((int) chunkCount)
+                .createTime(System.currentTimeMillis())
+                .build();
+        initChunkFile(chunkUpload);
+        saveChunkUpload(chunkUpload);
+        chunkUploads.put(chunkUpload.getUploadId(), chunkUpload);
+        return chunkUpload;
+    }
+
+    @Override
+    public void uploadChunk(String uploadId, int chunkNumber, MultipartFile chunk) throws Exception {
+        ChunkUpload chunkUpload = getChunkUpload(uploadId);
+        if (chunkNumber < 1 || chunkNumber > chunkUpload.getChunkCount()) {
+            throw new Exception("分片序号不正确");
+        }
+        if (chunk.getSize() != chunkUpload.getChunkLength(chunkNumber)) {
+            throw new Exception("分片大小不正确");
+        }
+        UploadAdmissionController.Permit permit = admit(chunk.getSize());
+        try {
+            uploadChunkFile(chunkUpload, chunkNumber, chunk);
+        } finally {
+            releasePermit(permit);
+        }
+    }
+
+    @Override
+    public List<Integer> listChunks(String uploadId) throws Exception {
+        return listChunkFiles(getChunkUpload(uploadId));
+    }
+
+    @Override
+    public File mergeChunks(String uploadId) throws Exception {
+        ChunkUpload chunkUpload = getChunkUpload(uploadId);
+        synchronized (chunkUpload) {
+            if (listChunkFiles(chunkUpload).size() != chunkUpload.getChunkCount()) {
+                throw new Exception("分片未全部上传");
+            }
+            File file = buildFile(chunkUpload.getSubmittedFileName(), chunkUpload.getContextType(), chunkUpload.getSize(), chunkUpload.getDir());
+            mergeChunkFile(chunkUpload);
+            file.setFileName(chunkUpload.getFileName());
+            file.setRelativePath(chunkUpload.getRelativePath());
+            removeChunkUpload(uploadId);
+            return file;
+        }
+    }
+
+    @Override
+    public boolean abortChunkUpload(String uploadId) throws Exception {
+        ChunkUpload chunkUpload = getChunkUpload(uploadId);
+        try {
+            abortChunkFile(chunkUpload);
+        } catch (Exception e) {
+            log.error("取消分片上传{}时发生错误！", uploadId);
+            return false;
+        } finally {
+            removeChunkUpload(uploadId);
+        }
+        return true;
+    }
+
+    @Override
+    public long transferTo(String fileName, WritableByteChannel target) throws Exception {
+        return transferTo(fileName, 0, -1, target);
+    }
+
+    /**
+     * 通过文件流和复用的缓冲区写入目标通道，子类可以覆盖为零拷贝实现
+     */
+    @Override
+    public long transferTo(String fileName, long offset, long length, WritableByteChannel target) throws Exception {
+        InputStream in = offset == 0 && length < 0 ? getFileInputStream(fileName) : getFileInputStream(fileName, offset, length);
+        if (in == null) {
+            throw new Exception("读取文件流失败");
+        }
+        try {
+            return ByteBufferPool.getDefault().copy(in, target);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * 初始化分片上传,需要子类设置文件名和相对路径，不支持分片上传的子类不需要重写
+     *
+     * @param chunkUpload 分片上传任务
+     */
+    protected void initChunkFile(ChunkUpload chunkUpload) throws Exception {
+        throw new Exception(CHUNK_NOT_SUPPORTED);
+    }
+
+    /**
+     * 上传单个分片,需要子类实现
+     *
+     * @param chunkUpload 分片上传任务
+     * @param chunkNumber 分片序号
+     * @param chunk       分片数据
+     */
+    protected void uploadChunkFile(ChunkUpload chunkUpload, int chunkNumber, MultipartFile chunk) throws Exception {
+        throw new Exception(CHUNK_NOT_SUPPORTED);
+    }
+
+    /**
+     * 获取已上传的分片序号,需要子类实现
+     *
+     * @param chunkUpload 分片上传任务
+     * @return 已上传的分片序号
+     */
+    protected List<Integer> listChunkFiles(ChunkUpload chunkUpload) throws Exception {
+        throw new Exception(CHUNK_NOT_SUPPORTED);
+    }
+
+    /**
+     * 合并分片,需要子类实现
+     *
+     * @param chunkUpload 分片上传任务
+     */
+    protected void mergeChunkFile(ChunkUpload chunkUpload) throws Exception {
+        throw new Exception(CHUNK_NOT_SUPPORTED);
+    }
+
+    /**
+     * 取消分片上传,需要子类实现
+     *
+     * @param chunkUpload 分片上传任务
+     */
+    protected void abortChunkFile(ChunkUpload chunkUpload) throws Exception {
+        throw new Exception(CHUNK_NOT_SUPPORTED);
+    }
+
+    /**
+     * 获取分片临时存放目录，未配置时使用系统临时目录
+     *
+     * @param uploadId 分片上传ID
+     * @return 分片临时存放目录
+     */
+    protected Path getChunkPath(String uploadId) {
+        String storagePath = fileProperties.getStoragePath();
+        if (storagePath == null || "".equals(storagePath)) {
+            storagePath = Paths.get(System.getProperty("java.io.tmpdir"), "jie-file-chunk").toString();
+        }
+        return Paths.get(storagePath, uploadId);
+    }
+
+    /**
+     * 获取分片上传任务，服务重启后从分片临时目录中恢复
+     */
+    private ChunkUpload getChunkUpload(String uploadId) throws Exception {
+        if (uploadId == null || !uploadId.matches("[0-9a-zA-Z]+")) {
+            throw new Exception("分片上传ID不正确");
+        }
+        ChunkUpload chunkUpload = chunkUploads.get(uploadId);
+        if (chunkUpload != null) {
+            return chunkUpload;
+        }
+        Path meta = getChunkPath(uploadId).resolve(CHUNK_META);
+        if (!Files.exists(meta)) {
+            throw new Exception("分片上传任务不存在");
+        }
+        Properties prop = new Properties();
+        try (InputStream in = Files.newInputStream(meta)) {
+            prop.load(in);
+        }
+        chunkUpload = ChunkUpload.builder()
+                .uploadId(uploadId)
+                .storageUploadId(prop.getProperty("storageUploadId"))
+                .submittedFileName(prop.getProperty("submittedFileName"))
+                .contextType(prop.getProperty("contextType"))
+                .dir(prop.getProperty("dir"))
+                .size(Long.valueOf(prop.getProperty("size")))
+                .chunkSize(Long.valueOf(prop.getProperty("chunkSize")))
+                .chunkCount(Integer.valueOf(prop.getProperty("chunkCount")))
+                .fileName(prop.getProperty("fileName"))
+                .relativePath(prop.getProperty("relativePath"))
+                .createTime(Long.valueOf(prop.getProperty("createTime")))
+                .build();
+        ChunkUpload exist = chunkUploads.putIfAbsent(uploadId, chunkUpload);
+        return exist != null ? exist : chunkUpload;
+    }
+
+    private void saveChunkUpload(ChunkUpload chunkUpload) throws IOException {
+        Properties prop = new Properties();
+        prop.setProperty("submittedFileName", chunkUpload.getSubmittedFileName());
+        prop.setProperty("size", String.valueOf(chunkUpload.getSize()));
+        prop.setProperty("chunkSize", String.valueOf(chunkUpload.getChunkSize()));
+        prop.setProperty("chunkCount", String.valueOf(chunkUpload.getChunkCount()));
+        prop.setProperty("fileName", chunkUpload.getFileName());
+        prop.setProperty("relativePath", chunkUpload.getRelativePath());
+        prop.setProperty("createTime", String.valueOf(chunkUpload.getCreateTime()));
+        if (chunkUpload.getStorageUploadId() != null) {
+            prop.setProperty("storageUploadId", chunkUpload.getStorageUploadId());
+        }
+        if (chunkUpload.getContextType() != null) {
+            prop.setProperty("contextType", chunkUpload.getContextType());
+        }
+        if (chunkUpload.getDir() != null) {
+            prop.setProperty("dir", chunkUpload.getDir());
+        }
+        Path chunkPath = getChunkPath(chunkUpload.getUploadId());
+        Files.createDirectories(chunkPath);
+        try (OutputStream out = Files.newOutputStream(chunkPath.resolve(CHUNK_META))) {
+            prop.store(out, null);
+        }
+    }
+
+    private void removeChunkUpload(String uploadId) {
+        chunkUploads.remove(uploadId);
+        FileUtils.deleteQuietly(getChunkPath(uploadId).toFile());
+    }
+
     /**
      * 获取下载地址前缀
      */
@@ -0,0 +1,310 @@
+package com.jie.file.strategy.impl;
+
+import com.jie.file.cache.FileReadCache;
+import com.jie.file.entity.ChunkUpload;
+import com.jie.file.entity.DeleteResult;
+import com.jie.file.entity.File;
+import com.jie.file.strategy.FileStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 带内容缓存的文件策略
+ * 读取文件流时先查缓存，未命中时从 {@link FileStrategy} 读取并缓存小文件，删除文件时移除缓存
+ * 读取前记录缓存版本号，读取期间文件被删除时不放入缓存
+ *
+ * @author jie
+ */
+@Slf4j
+public class CachingFileStrategy implements FileStrategy {
+
+    private final FileStrategy fileStrategy;
+
+    private final FileReadCache cache;
+
+    /**
+     * 将删除时的文件名称转换为读取时的文件名称，两者一致时为原样返回
+     */
+    private final Function<String, String> deleteNameMapper;
+
+    public CachingFileStrategy(FileStrategy fileStrategy, FileReadCache cache) {
+        this(fileStrategy, cache, Function.identity());
+    }
+
+    public CachingFileStrategy(FileStrategy fileStrategy, FileReadCache cache, Function<String, String> deleteNameMapper) {
+        this.fileStrategy = fileStrategy;
+        this.cache = cache;
+        this.deleteNameMapper = deleteNameMapper;
+    }
+
+    public FileStrategy getFileStrategy() {
+        return fileStrategy;
+    }
+
+    public FileReadCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public File upload(MultipartFile file) throws Exception {
+        return fileStrategy.upload(file);
+    }
+
+    @Override
+    public File upload(MultipartFile file, String dir) throws Exception {
+        return fileStrategy.upload(file, dir);
+    }
+
+    @Override
+    public File tryInstantUpload(String md5, long size, String originalName, String dir) throws Exception {
+        return fileStrategy.tryInstantUpload(md5, size, originalName, dir);
+    }
+
+    /**
+     * 删除前后各移除一次缓存，避免删除期间并发读取把即将删除的内容重新放入缓存
+     */
+    @Override
+    public boolean delete(String fileName) throws Exception {
+        invalidateName(fileName);
+        try {
+            return fileStrategy.delete(fileName);
+        } finally {
+            invalidateName(fileName);
+        }
+    }
+
+    @Override
+    public boolean delete(String... fileNames) throws Exception {
+        invalidateNames(fileNames);
+        try {
+            return fileStrategy.delete(fileNames);
+        } finally {
+            invalidateNames(fileNames);
+        }
+    }
+
+    @Override
+    public boolean delete(File file) throws Exception {
+        invalidateFile(file);
+        try {
+            return fileStrategy.delete(file);
+        } finally {
+            invalidateFile(file);
+        }
+    }
+
+    @Override
+    public boolean delete(List<File> listFile) throws Exception {
+        invalidateFiles(listFile);
+        try {
+            return fileStrategy.delete(listFile);
+        } finally {
+            invalidateFiles(listFile);
+        }
+    }
+
+    /**
+     * 文件名称可能只能遍历一次，在原策略读取每个名称时移除缓存，删除完成后按删除结果再移除一次
+     */
+    @Override
+    public DeleteResult batchDelete(Iterable<String> fileNames) throws Exception {
+        DeleteResult result = fileStrategy.batchDelete(invalidating(fileNames, this::invalidateName));
+        result.getSuccesses().forEach(this::invalidateName);
+        result.getFailures().keySet().forEach(this::invalidateName);
+        return result;
+    }
+
+    /**
+     * 删除结果中的名称为文件的相对路径
+     */
+    @Override
+    public DeleteResult batchDeleteFiles(Iterable<File> files) throws Exception {
+        DeleteResult result = fileStrategy.batchDeleteFiles(invalidating(files, this::invalidateFile));
+        result.getSuccesses().forEach(cache::invalidate);
+        result.getFailures().keySet().forEach(cache::invalidate);
+        return result;
+    }
+
+    @Override
+    public String getFileUrl(String fileName) throws Exception {
+        return fileStrategy.getFileUrl(fileName);
+    }
+
+    @Override
+    public Map<String, String> getFileUrls(Collection<String> fileNames) throws Exception {
+        return fileStrategy.getFileUrls(fileNames);
+    }
+
+    /**
+     * 获取文件流
+     * 缓存未命中时读取不超过单个文件大小上限的内容，读完的文件放入缓存，
+     * 超过上限的文件将已读取的部分和剩余的流拼接后返回，不做缓存
+     */
+    @Override
+    public InputStream getFileInputStream(String fileName) {
+        byte[] content = cache.get(fileName);
+        if (content != null) {
+            return new ByteArrayInputStream(content);
+        }
+        long generation = cache.generation(fileName);
+        InputStream in = fileStrategy.getFileInputStream(fileName);
+        if (in == null) {
+            return null;
+        }
+        try {
+            int limit = (int) Math.min(cache.getMaxEntrySize() + 1, Integer.MAX_VALUE - 8);
+            byte[] buffer = new byte[Math.min(limit, 64 * 1024)];
+            int length = 0;
+            int count;
+            while (length < limit && (count = in.read(buffer, length, Math.min(buffer.length, limit) - length)) >= 0) {
+                length += count;
+                if (length == buffer.length && length < limit) {
+                    buffer = Arrays.copyOf(buffer, (int) Math.min((long) buffer.length * 2, limit));
+                }
+            }
+            if (length < limit) {
+                in.close();
+                content = length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+                cache.put(fileName, content, generation);
+                return new ByteArrayInputStream(content);
+            }
+            return new SequenceInputStream(new ByteArrayInputStream(buffer, 0, length), in);
+        } catch (IOException e) {
+            IOUtils.closeQuietly(in);
+            log.error("读取文件流失败！", e);
+            return null;
+        }
+    }
+
+    @Override
+    public InputStream getFileInputStream(String fileName, long offset, long length) {
+        byte[] content = cache.get(fileName);
+        if (content != null) {
+            int from = (int) Math.min(Math.max(offset, 0), content.length);
+            int count = length < 0 ? content.length - from : (int) Math.min(length, content.length - from);
+            return new ByteArrayInputStream(content, from, count);
+        }
+        return fileStrategy.getFileInputStream(fileName, offset, length);
+    }
+
+    @Override
+    public long transferTo(String fileName, WritableByteChannel target) throws Exception {
+        return transferTo(fileName, 0, -1, target);
+    }
+
+    /**
+     * 命中缓存时直接写入缓存的内容，未命中时由原策略写入，不做缓存
+     */
+    @Override
+    public long transferTo(String fileName, long offset, long length, WritableByteChannel target) throws Exception {
+        byte[] content = cache.get(fileName);
+        if (content == null) {
+            return fileStrategy.transferTo(fileName, offset, length, target);
+        }
+        int from = (int) Math.min(Math.max(offset, 0), content.length);
+        int count = length < 0 ? content.length - from : (int) Math.min(length, content.length - from);
+        ByteBuffer buffer = ByteBuffer.wrap(content, from, count);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+        return count;
+    }
+
+    @Override
+    public boolean fileExists(String fileName) {
+        return fileStrategy.fileExists(fileName);
+    }
+
+    @Override
+    public Map<String, Boolean> fileExists(Collection<String> fileNames) {
+        return fileStrategy.fileExists(fileNames);
+    }
+
+    @Override
+    public ChunkUpload initChunkUpload(String originalFilename, String contentType, long size, long chunkSize, String dir) throws Exception {
+        return fileStrategy.initChunkUpload(originalFilename, contentType, size, chunkSize, dir);
+    }
+
+    @Override
+    public void uploadChunk(String uploadId, int chunkNumber, MultipartFile chunk) throws Exception {
+        fileStrategy.uploadChunk(uploadId, chunkNumber, chunk);
+    }
+
+    @Override
+    public List<Integer> listChunks(String uploadId) throws Exception {
+        return fileStrategy.listChunks(uploadId);
+    }
+
+    @Override
+    public File mergeChunks(String uploadId) throws Exception {
+        return fileStrategy.mergeChunks(uploadId);
+    }
+
+    @Override
+    public boolean abortChunkUpload(String uploadId) throws Exception {
+        return fileStrategy.abortChunkUpload(uploadId);
+    }
+
+    /**
+     * 包装为遍历时移除缓存的Iterable，只调用一次原Iterable的iterator()
+     */
+    private static <T> Iterable<T> invalidating(Iterable<T> source, Consumer<T> invalidator) {
+        return () -> {
+            Iterator<T> iterator = source.iterator();
+            return new Iterator<T>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public T next() {
+                    T next = iterator.next();
+                    invalidator.accept(next);
+                    return next;
+                }
+            };
+        };
+    }
+
+    private void invalidateNames(String... fileNames) {
+        if (fileNames != null) {
+            for (String fileName : fileNames) {
+                invalidateName(fileName);
+            }
+        }
+    }
+
+    private void invalidateFiles(List<File> files) {
+        if (files != null) {
+            files.forEach(this::invalidateFile);
+        }
+    }
+
+    private void invalidateName(String fileName) {
+        if (fileName != null) {
+            cache.invalidate(deleteNameMapper.apply(fileName));
+        }
+    }
+
+    private void invalidateFile(File file) {
+        if (file != null && file.getRelativePath() != null) {
+            cache.invalidate(file.getRelativePath());
+        }
+    }
+}
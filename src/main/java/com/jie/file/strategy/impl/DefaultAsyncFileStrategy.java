@@ -0,0 +1,94 @@
+package com.jie.file.strategy.impl;
+
+import com.jie.file.entity.File;
+import com.jie.file.strategy.AsyncFileStrategy;
+import com.jie.file.strategy.FileStrategy;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 异步文件上传默认实现
+ * 将操作委托给 {@link FileStrategy}，在指定的线程池中执行
+ *
+ * @author jie
+ */
+public class DefaultAsyncFileStrategy implements AsyncFileStrategy {
+
+    private final FileStrategy fileStrategy;
+
+    private final Executor executor;
+
+    public DefaultAsyncFileStrategy(FileStrategy fileStrategy, Executor executor) {
+        this.fileStrategy = fileStrategy;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<File> uploadAsync(MultipartFile file) {
+        return supply(() -> fileStrategy.upload(file));
+    }
+
+    @Override
+    public CompletableFuture<File> uploadAsync(MultipartFile file, String dir) {
+        return supply(() -> fileStrategy.upload(file, dir));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteAsync(String fileName) {
+        return supply(() -> fileStrategy.delete(fileName));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteAsync(String... fileNames) {
+        return supply(() -> fileStrategy.delete(fileNames));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteAsync(File file) {
+        return supply(() -> fileStrategy.delete(file));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteAsync(List<File> listFile) {
+        return supply(() -> fileStrategy.delete(listFile));
+    }
+
+    @Override
+    public CompletableFuture<String> getFileUrlAsync(String fileName) {
+        return supply(() -> fileStrategy.getFileUrl(fileName));
+    }
+
+    @Override
+    public CompletableFuture<InputStream> getFileInputStreamAsync(String fileName) {
+        return supply(() -> fileStrategy.getFileInputStream(fileName));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> fileExistsAsync(String fileName) {
+        return supply(() -> fileStrategy.fileExists(fileName));
+    }
+
+    /**
+     * 在线程池中执行，异常通过返回的CompletableFuture传递
+     */
+    private <T> CompletableFuture<T> supply(Callable<T> callable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(callable.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
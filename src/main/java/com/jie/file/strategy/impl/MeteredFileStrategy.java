@@ -0,0 +1,389 @@
+package com.jie.file.strategy.impl;
+
+import com.jie.file.entity.ChunkUpload;
+import com.jie.file.entity.DeleteResult;
+import com.jie.file.entity.File;
+import com.jie.file.enumeration.DataType;
+import com.jie.file.enumeration.FileStorageType;
+import com.jie.file.strategy.FileStrategy;
+import com.jie.file.utils.FileDataTypeUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 带监控指标的文件策略
+ * 记录每个操作的耗时、进行中的数量、上传和下载的字节数以及失败次数，按存储类型和文件类型区分
+ * 抛出异常的操作outcome为error，返回false、null或删除结果中有失败文件的操作outcome为failure，exception为NONE
+ * 上传的文件类型取识别后的文件类型，不使用客户端传入的Content-Type
+ * <pre>
+ * jie.file.operation       耗时，标签 operation、storage、dataType、outcome
+ * jie.file.operation.active 进行中的操作数，标签 operation、storage
+ * jie.file.bytes           传输字节数，标签 operation、storage、dataType
+ * jie.file.errors          失败次数，标签 operation、storage、dataType、exception
+ * </pre>
+ *
+ * @author jie
+ */
+public class MeteredFileStrategy implements FileStrategy {
+
+    private static final String UPLOAD = "upload";
+    private static final String DELETE = "delete";
+    private static final String GET_FILE_URL = "getFileUrl";
+    private static final String GET_FILE_INPUT_STREAM = "getFileInputStream";
+    private static final String TRANSFER_TO = "transferTo";
+    private static final String FILE_EXISTS = "fileExists";
+    private static final String CHUNK_UPLOAD = "uploadChunk";
+    private static final String MERGE_CHUNKS = "mergeChunks";
+
+    private static final String SUCCESS = "success";
+    private static final String FAILURE = "failure";
+    private static final String ERROR = "error";
+    private static final String NONE = "NONE";
+
+    private final FileStrategy fileStrategy;
+
+    private final MeterRegistry registry;
+
+    private final String storage;
+
+    private final Map<String, AtomicInteger> active = new ConcurrentHashMap<>();
+
+    /**
+     * operation|dataType|outcome -> 耗时
+     */
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * operation|dataType -> 传输字节数
+     */
+    private final Map<String, Counter> bytes = new ConcurrentHashMap<>();
+
+    /**
+     * operation|dataType|exception -> 失败次数
+     */
+    private final Map<String, Counter> errors = new ConcurrentHashMap<>();
+
+    public MeteredFileStrategy(FileStrategy fileStrategy, MeterRegistry registry, FileStorageType storageType) {
+        this.fileStrategy = fileStrategy;
+        this.registry = registry;
+        this.storage = storageType == null ? "UNKNOWN" : storageType.name();
+    }
+
+    public FileStrategy getFileStrategy() {
+        return fileStrategy;
+    }
+
+    @Override
+    public File upload(MultipartFile file) throws Exception {
+        return record(UPLOAD, MeteredFileStrategy::dataType, file.getSize(), true, () -> fileStrategy.upload(file));
+    }
+
+    @Override
+    public File upload(MultipartFile file, String dir) throws Exception {
+        return record(UPLOAD, MeteredFileStrategy::dataType, file.getSize(), true, () -> fileStrategy.upload(file, dir));
+    }
+
+    @Override
+    public File tryInstantUpload(String md5, long size, String originalName, String dir) throws Exception {
+        return fileStrategy.tryInstantUpload(md5, size, originalName, dir);
+    }
+
+    @Override
+    public boolean delete(String fileName) throws Exception {
+        return record(DELETE, dataType(fileName), 0, () -> fileStrategy.delete(fileName));
+    }
+
+    @Override
+    public boolean delete(String... fileNames) throws Exception {
+        return record(DELETE, null, 0, () -> fileStrategy.delete(fileNames));
+    }
+
+    @Override
+    public boolean delete(File file) throws Exception {
+        return record(DELETE, file == null ? null : file.getDataType(), 0, () -> fileStrategy.delete(file));
+    }
+
+    @Override
+    public boolean delete(List<File> listFile) throws Exception {
+        return record(DELETE, null, 0, () -> fileStrategy.delete(listFile));
+    }
+
+    @Override
+    public DeleteResult batchDelete(Iterable<String> fileNames) throws Exception {
+        return record(DELETE, null, 0, () -> fileStrategy.batchDelete(fileNames));
+    }
+
+    @Override
+    public DeleteResult batchDeleteFiles(Iterable<File> files) throws Exception {
+        return record(DELETE, null, 0, () -> fileStrategy.batchDeleteFiles(files));
+    }
+
+    @Override
+    public String getFileUrl(String fileName) throws Exception {
+        return record(GET_FILE_URL, dataType(fileName), 0, () -> fileStrategy.getFileUrl(fileName));
+    }
+
+    @Override
+    public Map<String, String> getFileUrls(Collection<String> fileNames) throws Exception {
+        return record(GET_FILE_URL, null, 0, () -> fileStrategy.getFileUrls(fileNames));
+    }
+
+    /**
+     * 耗时只记录打开文件流的时间，读取的字节数在文件流关闭时记录
+     */
+    @Override
+    public InputStream getFileInputStream(String fileName) {
+        DataType dataType = dataType(fileName);
+        return meterStream(dataType, recordUnchecked(GET_FILE_INPUT_STREAM, dataType, true, () -> fileStrategy.getFileInputStream(fileName)));
+    }
+
+    @Override
+    public InputStream getFileInputStream(String fileName, long offset, long length) {
+        DataType dataType = dataType(fileName);
+        return meterStream(dataType, recordUnchecked(GET_FILE_INPUT_STREAM, dataType, true, () -> fileStrategy.getFileInputStream(fileName, offset, length)));
+    }
+
+    @Override
+    public long transferTo(String fileName, WritableByteChannel target) throws Exception {
+        return transferTo(fileName, 0, -1, target);
+    }
+
+    @Override
+    public long transferTo(String fileName, long offset, long length, WritableByteChannel target) throws Exception {
+        DataType dataType = dataType(fileName);
+        long count = record(TRANSFER_TO, dataType, 0, () -> fileStrategy.transferTo(fileName, offset, length, target));
+        bytes(TRANSFER_TO, dataType).increment(count);
+        return count;
+    }
+
+    @Override
+    public boolean fileExists(String fileName) {
+        // 文件不存在不是失败
+        return recordUnchecked(FILE_EXISTS, dataType(fileName), false, () -> fileStrategy.fileExists(fileName));
+    }
+
+    @Override
+    public Map<String, Boolean> fileExists(Collection<String> fileNames) {
+        return recordUnchecked(FILE_EXISTS, null, false, () -> fileStrategy.fileExists(fileNames));
+    }
+
+    @Override
+    public ChunkUpload initChunkUpload(String originalFilename, String contentType, long size, long chunkSize, String dir) throws Exception {
+        return fileStrategy.initChunkUpload(originalFilename, contentType, size, chunkSize, dir);
+    }
+
+    @Override
+    public void uploadChunk(String uploadId, int chunkNumber, MultipartFile chunk) throws Exception {
+        record(CHUNK_UPLOAD, result -> null, chunk.getSize(), false, () -> {
+            fileStrategy.uploadChunk(uploadId, chunkNumber, chunk);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Integer> listChunks(String uploadId) throws Exception {
+        return fileStrategy.listChunks(uploadId);
+    }
+
+    @Override
+    public File mergeChunks(String uploadId) throws Exception {
+        return record(MERGE_CHUNKS, MeteredFileStrategy::dataType, 0, true, () -> fileStrategy.mergeChunks(uploadId));
+    }
+
+    @Override
+    public boolean abortChunkUpload(String uploadId) throws Exception {
+        return fileStrategy.abortChunkUpload(uploadId);
+    }
+
+    private <T> T record(String operation, DataType dataType, long size, Callable<T> callable) throws Exception {
+        return record(operation, result -> dataType, size, true, callable);
+    }
+
+    /**
+     * 执行操作并记录耗时、进行中的数量和失败次数，成功时记录传输的字节数
+     *
+     * @param dataType    根据操作结果得到文件类型，操作抛出异常时传入null
+     * @param checkResult 是否把false、null等结果记为失败
+     */
+    private <T> T record(String operation, Function<? super T, DataType> dataType, long size, boolean checkResult,
+                         Callable<T> callable) throws Exception {
+        AtomicInteger counter = active(operation);
+        counter.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            T result = callable.call();
+            long elapsed = System.nanoTime() - start;
+            DataType type = dataType.apply(result);
+            if (checkResult && !succeeded(result)) {
+                timer(operation, type, FAILURE).record(elapsed, TimeUnit.NANOSECONDS);
+                error(operation, type, NONE).increment();
+                return result;
+            }
+            timer(operation, type, SUCCESS).record(elapsed, TimeUnit.NANOSECONDS);
+            if (size > 0) {
+                bytes(operation, type).increment(size);
+            }
+            return result;
+        } catch (Exception e) {
+            DataType type = dataType.apply(null);
+            timer(operation, type, ERROR).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            error(operation, type, e.getClass().getSimpleName()).increment();
+            throw e;
+        } finally {
+            counter.decrementAndGet();
+        }
+    }
+
+    /**
+     * 记录不抛出受检异常的操作
+     */
+    private <T> T recordUnchecked(String operation, DataType dataType, boolean checkResult, Callable<T> callable) {
+        try {
+            return record(operation, result -> dataType, 0, checkResult, callable);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean succeeded(Object result) {
+        if (result == null) {
+            return false;
+        }
+        if (result instanceof Boolean) {
+            return (Boolean) result;
+        }
+        if (result instanceof DeleteResult) {
+            return ((DeleteResult) result).isSuccess();
+        }
+        return true;
+    }
+
+    private Timer timer(String operation, DataType dataType, String outcome) {
+        String tag = dataType == null ? NONE : dataType.name();
+        return timers.computeIfAbsent(operation + '|' + tag + '|' + outcome, key -> Timer.builder("jie.file.operation")
+                .tag("operation", operation)
+                .tag("storage", storage)
+                .tag("dataType", tag)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry));
+    }
+
+    private Counter bytes(String operation, DataType dataType) {
+        String tag = dataType == null ? NONE : dataType.name();
+        return bytes.computeIfAbsent(operation + '|' + tag, key -> Counter.builder("jie.file.bytes")
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .tag("storage", storage)
+                .tag("dataType", tag)
+                .register(registry));
+    }
+
+    private Counter error(String operation, DataType dataType, String exception) {
+        String tag = dataType == null ? NONE : dataType.name();
+        return errors.computeIfAbsent(operation + '|' + tag + '|' + exception, key -> Counter.builder("jie.file.errors")
+                .tag("operation", operation)
+                .tag("storage", storage)
+                .tag("dataType", tag)
+                .tag("exception", exception)
+                .register(registry));
+    }
+
+    private AtomicInteger active(String operation) {
+        return active.computeIfAbsent(operation, key -> {
+            AtomicInteger counter = new AtomicInteger();
+            Gauge.builder("jie.file.operation.active", counter, AtomicInteger::get)
+                    .tag("operation", key)
+                    .tag("storage", storage)
+                    .register(registry);
+            return counter;
+        });
+    }
+
+    private static DataType dataType(File file) {
+        return file == null ? null : file.getDataType();
+    }
+
+    private static DataType dataType(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        return FileDataTypeUtil.getDataType(MediaTypeFactory.getMediaType(fileName).map(MediaType::toString).orElse(null));
+    }
+
+    private InputStream meterStream(DataType dataType, InputStream in) {
+        return in == null ? null : new MeteredInputStream(in, bytes(GET_FILE_INPUT_STREAM, dataType));
+    }
+
+    /**
+     * 关闭时记录读取字节数的文件流
+     */
+    private static class MeteredInputStream extends FilterInputStream {
+
+        private final Counter counter;
+
+        private long count;
+
+        private boolean closed;
+
+        private MeteredInputStream(InputStream in, Counter counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!closed) {
+                    closed = true;
+                    counter.increment(count);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.jie.file.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 缓冲区池
+ * 下载时复用缓冲区，避免每次请求分配新的缓冲区
+ * 使用堆内存缓冲区：输入流只能读入byte[]，直接读入缓冲区的底层数组再写入通道，不经过额外的中间数组
+ *
+ * @author jie
+ */
+public class ByteBufferPool {
+
+    /**
+     * 默认缓冲区大小
+     */
+    public final static int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final static ByteBufferPool DEFAULT = new ByteBufferPool(DEFAULT_BUFFER_SIZE, Runtime.getRuntime().availableProcessors() * 4);
+
+    private final int bufferSize;
+
+    private final BlockingQueue<ByteBuffer> buffers;
+
+    public ByteBufferPool(int bufferSize, int capacity) {
+        this.bufferSize = bufferSize;
+        this.buffers = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public static ByteBufferPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 获取缓冲区，池中没有空闲缓冲区时新建
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(bufferSize);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * 归还缓冲区，池已满时丢弃
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.hasArray() && buffer.capacity() == bufferSize) {
+            buffers.offer(buffer);
+        }
+    }
+
+    /**
+     * 将输入流拷贝到通道
+     *
+     * @param in     输入流，由调用方关闭
+     * @param target 目标通道
+     * @return 拷贝的字节数
+     */
+    public long copy(InputStream in, WritableByteChannel target) throws IOException {
+        ByteBuffer buffer = acquire();
+        byte[] array = buffer.array();
+        long total = 0;
+        try {
+            int n;
+            while ((n = in.read(array, 0, array.length)) >= 0) {
+                buffer.limit(n);
+                buffer.position(0);
+                while (buffer.hasRemaining()) {
+                    total += target.write(buffer);
+                }
+            }
+        } finally {
+            release(buffer);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,332 @@
+package com.jie.file.utils;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 根据文件头的魔数识别文件类型，不信任客户端上传的Content-Type
+ * 签名表在类加载时按首字节分组，识别时只比较首字节相同的签名，不需要逐个尝试
+ * zip、ole等容器格式（docx、xls、jar等都是zip或ole）只能确定大类，再结合文件后缀判断具体类型，后缀只能细化为已知基于该容器的类型
+ * bmp、mp3、aac的魔数很短，除魔数外还校验文件头中的字段，避免把恰好以这些字节开头的文本文件识别为图片或音频
+ *
+ * @author jie
+ */
+public final class ContentTypeSniffer {
+
+    /**
+     * 识别需要读取的文件头长度，tar的魔数在257字节处
+     */
+    public static final int HEADER_SIZE = 264;
+
+    /**
+     * 基于zip的格式：docx/xlsx/pptx、odt/ods、jar、epub，以及xps等微软格式
+     */
+    private static final String[] ZIP_BASED = {"application/vnd.openxmlformats-officedocument", "application/vnd.oasis.opendocument",
+            "application/java-archive", "application/epub+zip", "application/vnd.ms-"};
+
+    /**
+     * 基于ole的格式：doc/xls/ppt、msg等
+     */
+    private static final String[] OLE_BASED = {"application/msword", "application/vnd.ms-"};
+
+    private static final String[] MEDIA = {"video/", "audio/", "application/ogg"};
+
+    /**
+     * 魔数在文件开头的签名，按首字节分组，同组内较长的签名在前
+     */
+    private static final Signature[][] BY_FIRST_BYTE = new Signature[256][];
+
+    /**
+     * 魔数不在文件开头的签名
+     */
+    private static final Signature[] WITH_OFFSET;
+
+    static {
+        List<Signature> signatures = new ArrayList<>();
+        // 图片
+        signatures.add(new Signature("image/png", 0, bytes(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)));
+        signatures.add(new Signature("image/jpeg", 0, bytes(0xFF, 0xD8, 0xFF)));
+        signatures.add(new Signature("image/gif", 0, ascii("GIF87a")));
+        signatures.add(new Signature("image/gif", 0, ascii("GIF89a")));
+        signatures.add(new Signature("image/bmp", 0, ascii("BM"), ContentTypeSniffer::isBmpHeader));
+        signatures.add(new Signature("image/tiff", 0, bytes('I', 'I', 0x2A, 0x00)));
+        signatures.add(new Signature("image/tiff", 0, bytes('M', 'M', 0x00, 0x2A)));
+        signatures.add(new Signature("image/x-icon", 0, bytes(0x00, 0x00, 0x01, 0x00)));
+        signatures.add(new Signature("image/vnd.adobe.photoshop", 0, ascii("8BPS")));
+        signatures.add(new Signature("image/webp", 0, ascii("RIFF"), 8, ascii("WEBP")));
+        signatures.add(new Signature("image/heic", 4, ascii("ftypheic")));
+        signatures.add(new Signature("image/heic", 4, ascii("ftypheix")));
+        signatures.add(new Signature("image/heif", 4, ascii("ftypmif1")));
+        signatures.add(new Signature("image/avif", 4, ascii("ftypavif")));
+        // 视频
+        signatures.add(new Signature("video/quicktime", 4, ascii("ftypqt  ")));
+        signatures.add(new Signature("video/3gpp", 4, ascii("ftyp3gp")));
+        signatures.add(new Signature("video/mp4", 4, ascii("ftypisom")));
+        signatures.add(new Signature("video/mp4", 4, ascii("ftypiso2")));
+        signatures.add(new Signature("video/mp4", 4, ascii("ftypmp41")));
+        signatures.add(new Signature("video/mp4", 4, ascii("ftypmp42")));
+        signatures.add(new Signature("video/mp4", 4, ascii("ftypavc1")));
+        signatures.add(new Signature("video/mp4", 4, ascii("ftypdash")));
+        signatures.add(new Signature("video/x-m4v", 4, ascii("ftypM4V")));
+        signatures.add(new Signature("video/x-msvideo", 0, ascii("RIFF"), 8, ascii("AVI ")));
+        signatures.add(new Signature("video/x-flv", 0, bytes('F', 'L', 'V', 0x01)));
+        signatures.add(new Signature("video/mpeg", 0, bytes(0x00, 0x00, 0x01, 0xBA)));
+        signatures.add(new Signature("video/mpeg", 0, bytes(0x00, 0x00, 0x01, 0xB3)));
+        signatures.add(new Signature("video/x-matroska", MEDIA, 0, bytes(0x1A, 0x45, 0xDF, 0xA3)));
+        signatures.add(new Signature("video/x-ms-asf", MEDIA, 0, bytes(0x30, 0x26, 0xB2, 0x75, 0x8E, 0x66, 0xCF, 0x11)));
+        // 音频
+        signatures.add(new Signature("audio/mp4", 4, ascii("ftypM4A")));
+        signatures.add(new Signature("audio/mpeg", 0, ascii("ID3")));
+        signatures.add(new Signature("audio/mpeg", 0, bytes(0xFF), ContentTypeSniffer::isMpegAudioFrame));
+        signatures.add(new Signature("audio/aac", 0, bytes(0xFF), ContentTypeSniffer::isAdtsFrame));
+        signatures.add(new Signature("audio/wav", 0, ascii("RIFF"), 8, ascii("WAVE")));
+        signatures.add(new Signature("audio/flac", 0, ascii("fLaC")));
+        signatures.add(new Signature("audio/ogg", MEDIA, 0, ascii("OggS")));
+        signatures.add(new Signature("audio/midi", 0, ascii("MThd")));
+        signatures.add(new Signature("audio/amr", 0, ascii("#!AMR")));
+        // 文档
+        signatures.add(new Signature("application/pdf", 0, ascii("%PDF-")));
+        signatures.add(new Signature("application/rtf", 0, ascii("{\\rtf")));
+        signatures.add(new Signature("application/x-ole-storage", OLE_BASED, 0, bytes(0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1)));
+        // 压缩包
+        signatures.add(new Signature("application/zip", ZIP_BASED, 0, bytes('P', 'K', 0x03, 0x04)));
+        signatures.add(new Signature("application/zip", ZIP_BASED, 0, bytes('P', 'K', 0x05, 0x06)));
+        signatures.add(new Signature("application/zip", ZIP_BASED, 0, bytes('P', 'K', 0x07, 0x08)));
+        signatures.add(new Signature("application/vnd.rar", 0, bytes('R', 'a', 'r', '!', 0x1A, 0x07)));
+        signatures.add(new Signature("application/x-7z-compressed", 0, bytes('7', 'z', 0xBC, 0xAF, 0x27, 0x1C)));
+        signatures.add(new Signature("application/gzip", 0, bytes(0x1F, 0x8B)));
+        signatures.add(new Signature("application/x-bzip2", 0, ascii("BZh")));
+        signatures.add(new Signature("application/x-xz", 0, bytes(0xFD, '7', 'z', 'X', 'Z', 0x00)));
+        signatures.add(new Signature("application/zstd", 0, bytes(0x28, 0xB5, 0x2F, 0xFD)));
+        signatures.add(new Signature("application/x-tar", 257, ascii("ustar")));
+
+        List<List<Signature>> groups = new ArrayList<>(256);
+        for (int i = 0; i < 256; i++) {
+            groups.add(new ArrayList<>());
+        }
+        List<Signature> withOffset = new ArrayList<>();
+        signatures.sort((a, b) -> b.magic.length - a.magic.length);
+        for (Signature signature : signatures) {
+            if (signature.offset == 0) {
+                groups.get(signature.magic[0] & 0xFF).add(signature);
+            } else {
+                withOffset.add(signature);
+            }
+        }
+        for (int i = 0; i < 256; i++) {
+            List<Signature> group = groups.get(i);
+            BY_FIRST_BYTE[i] = group.isEmpty() ? null : group.toArray(new Signature[0]);
+        }
+        WITH_OFFSET = withOffset.toArray(new Signature[0]);
+    }
+
+    private ContentTypeSniffer() {
+    }
+
+    /**
+     * 读取文件头并识别类型，只读取 {@link #HEADER_SIZE} 个字节
+     *
+     * @param in               文件流，由调用方关闭
+     * @param originalFilename 原始文件名，用于判断容器格式的具体类型
+     * @return 识别出的类型，无法识别时返回null
+     */
+    public static String detect(InputStream in, String originalFilename) throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        int length = 0;
+        int n;
+        while (length < header.length && (n = in.read(header, length, header.length - length)) > 0) {
+            length += n;
+        }
+        return detect(header, length, originalFilename);
+    }
+
+    /**
+     * 识别文件头
+     *
+     * @param header           文件头
+     * @param length           文件头的有效长度
+     * @param originalFilename 原始文件名，用于判断容器格式的具体类型
+     * @return 识别出的类型，无法识别时返回null
+     */
+    public static String detect(byte[] header, int length, String originalFilename) {
+        if (length <= 0) {
+            return null;
+        }
+        Signature matched = null;
+        Signature[] group = BY_FIRST_BYTE[header[0] & 0xFF];
+        if (group != null) {
+            for (Signature signature : group) {
+                if (signature.matches(header, length)) {
+                    matched = signature;
+                    break;
+                }
+            }
+        }
+        if (matched == null) {
+            for (Signature signature : WITH_OFFSET) {
+                if (signature.matches(header, length)) {
+                    matched = signature;
+                    break;
+                }
+            }
+        }
+        if (matched == null) {
+            return null;
+        }
+        if (matched.containerOf != null && originalFilename != null) {
+            String byName = MediaTypeFactory.getMediaType(originalFilename).map(MediaType::toString).orElse(null);
+            if (byName != null) {
+                for (String prefix : matched.containerOf) {
+                    if (byName.startsWith(prefix)) {
+                        return byName;
+                    }
+                }
+            }
+        }
+        return matched.mime;
+    }
+
+    /**
+     * bmp文件头：偏移2处为文件大小，偏移14处为DIB头长度，只接受常见的几种DIB头
+     */
+    private static boolean isBmpHeader(byte[] header, int length) {
+        if (length < 18) {
+            return false;
+        }
+        long fileSize = uint32(header, 2);
+        long dibSize = uint32(header, 14);
+        return (dibSize == 12 || dibSize == 40 || dibSize == 108 || dibSize == 124) && fileSize >= 14 + dibSize;
+    }
+
+    /**
+     * mp3等MPEG音频帧头：11位同步位，版本、层不是保留值，比特率索引不是0和15，采样率索引不是3，强调方式不是保留值
+     */
+    private static boolean isMpegAudioFrame(byte[] header, int length) {
+        if (length < 4) {
+            return false;
+        }
+        int b1 = header[1] & 0xFF;
+        int b2 = header[2] & 0xFF;
+        int b3 = header[3] & 0xFF;
+        int version = (b1 >> 3) & 0x03;
+        int layer = (b1 >> 1) & 0x03;
+        int bitrate = b2 >> 4;
+        int sampleRate = (b2 >> 2) & 0x03;
+        return (b1 & 0xE0) == 0xE0 && version != 1 && layer != 0
+                && bitrate != 0 && bitrate != 15 && sampleRate != 3 && (b3 & 0x03) != 2;
+    }
+
+    /**
+     * aac的ADTS帧头：12位同步位，层为0，采样率索引有效，帧长度不小于帧头长度
+     */
+    private static boolean isAdtsFrame(byte[] header, int length) {
+        if (length < 7) {
+            return false;
+        }
+        int b1 = header[1] & 0xFF;
+        int sampleRate = (header[2] >> 2) & 0x0F;
+        int frameLength = ((header[3] & 0x03) << 11) | ((header[4] & 0xFF) << 3) | ((header[5] & 0xFF) >> 5);
+        int headerLength = (b1 & 0x01) == 1 ? 7 : 9;
+        return (b1 & 0xF6) == 0xF0 && sampleRate <= 12 && frameLength >= headerLength;
+    }
+
+    private static long uint32(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFFL) | (bytes[offset + 1] & 0xFFL) << 8
+                | (bytes[offset + 2] & 0xFFL) << 16 | (bytes[offset + 3] & 0xFFL) << 24;
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 魔数匹配后对文件头的进一步校验
+     */
+    @FunctionalInterface
+    private interface HeaderCheck {
+
+        boolean test(byte[] header, int length);
+    }
+
+    /**
+     * 文件签名，magic在offset处，可选的第二段魔数second在secondOffset处（如RIFF容器的子类型），可选的check校验其余字段
+     */
+    private static final class Signature {
+
+        private final String mime;
+
+        /**
+         * 容器格式，按后缀得到的类型以这些前缀开头时使用后缀的类型
+         */
+        private final String[] containerOf;
+
+        private final int offset;
+
+        private final byte[] magic;
+
+        private final int secondOffset;
+
+        private final byte[] second;
+
+        private final HeaderCheck check;
+
+        private Signature(String mime, int offset, byte[] magic) {
+            this(mime, null, offset, magic, 0, null, null);
+        }
+
+        private Signature(String mime, int offset, byte[] magic, HeaderCheck check) {
+            this(mime, null, offset, magic, 0, null, check);
+        }
+
+        private Signature(String mime, String[] containerOf, int offset, byte[] magic) {
+            this(mime, containerOf, offset, magic, 0, null, null);
+        }
+
+        private Signature(String mime, int offset, byte[] magic, int secondOffset, byte[] second) {
+            this(mime, null, offset, magic, secondOffset, second, null);
+        }
+
+        private Signature(String mime, String[] containerOf, int offset, byte[] magic, int secondOffset, byte[] second,
+                          HeaderCheck check) {
+            this.mime = mime;
+            this.containerOf = containerOf;
+            this.offset = offset;
+            this.magic = magic;
+            this.secondOffset = secondOffset;
+            this.second = second;
+            this.check = check;
+        }
+
+        private boolean matches(byte[] header, int length) {
+            return matches(header, length, offset, magic)
+                    && (second == null || matches(header, length, secondOffset, second))
+                    && (check == null || check.test(header, length));
+        }
+
+        private static boolean matches(byte[] header, int length, int offset, byte[] magic) {
+            if (offset + magic.length > length) {
+                return false;
+            }
+            for (int i = 0; i < magic.length; i++) {
+                if (header[offset + i] != magic[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
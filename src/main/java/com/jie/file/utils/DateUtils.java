@@ -8,7 +8,10 @@ import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 /**
@@ -45,8 +48,42 @@ public class DateUtils {
     public final static long MAX_YEAR_DAY = 365;
 
 
+    /**
+     * 已解析的格式，DateTimeFormatter线程安全，所有线程共用
+     */
+    private static final Map<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+
+    /**
+     * SimpleDateFormat非线程安全，每个线程缓存一份
+     */
+    private static final ThreadLocal<Map<String, SimpleDateFormat>> SIMPLE_FORMATS = ThreadLocal.withInitial(HashMap::new);
+
     private DateUtils() {
     }
+
+    /**
+     * 获取指定格式的DateTimeFormatter，同一格式只解析一次
+     *
+     * @param pattern 格式
+     * @return DateTimeFormatter
+     */
+    public static DateTimeFormatter getFormatter(String pattern) {
+        DateTimeFormatter formatter = FORMATTERS.get(pattern);
+        if (formatter == null) {
+            formatter = FORMATTERS.computeIfAbsent(pattern, DateTimeFormatter::ofPattern);
+        }
+        return formatter;
+    }
+
+    /**
+     * 获取当前线程缓存的SimpleDateFormat，调用方不能修改它的设置
+     *
+     * @param pattern 格式
+     * @return SimpleDateFormat
+     */
+    private static SimpleDateFormat getSimpleFormat(String pattern) {
+        return SIMPLE_FORMATS.get().computeIfAbsent(pattern, SimpleDateFormat::new);
+    }
 //--格式化日期start-----------------------------------------
 
     /**
@@ -62,7 +99,7 @@ public class DateUtils {
         if (pattern == null) {
             pattern = DEFAULT_MONTH_FORMAT;
         }
-        return date.format(DateTimeFormatter.ofPattern(pattern));
+        return date.format(getFormatter(pattern));
     }
 
     /**
@@ -81,7 +118,7 @@ public class DateUtils {
         if (format == null) {
             format = DEFAULT_DATE_TIME_FORMAT;
         }
-        SimpleDateFormat df = new SimpleDateFormat(format);
+        SimpleDateFormat df = getSimpleFormat(format);
         return df.format(date);
     }
 
@@ -129,7 +166,7 @@ public class DateUtils {
      * @return
      */
     public static String formatAsYearMonth(Date date) {
-        SimpleDateFormat df = new SimpleDateFormat(DEFAULT_MONTH_FORMAT);
+        SimpleDateFormat df = getSimpleFormat(DEFAULT_MONTH_FORMAT);
         return df.format(date);
     }
 
@@ -140,7 +177,7 @@ public class DateUtils {
      * @return
      */
     public static String formatAsYearWeek(Date date) {
-        SimpleDateFormat df = new SimpleDateFormat(DEFAULT_WEEK_FORMAT);
+        SimpleDateFormat df = getSimpleFormat(DEFAULT_WEEK_FORMAT);
         return df.format(date);
     }
 
@@ -151,7 +188,7 @@ public class DateUtils {
      * @return
      */
     public static String formatAsTime(Date date) {
-        SimpleDateFormat df = new SimpleDateFormat(DEFAULT_TIME_FORMAT);
+        SimpleDateFormat df = getSimpleFormat(DEFAULT_TIME_FORMAT);
         return df.format(date);
     }
 
@@ -162,7 +199,7 @@ public class DateUtils {
      * @return
      */
     public static String formatAsDate(Date date) {
-        SimpleDateFormat df = new SimpleDateFormat(DEFAULT_DATE_FORMAT);
+        SimpleDateFormat df = getSimpleFormat(DEFAULT_DATE_FORMAT);
         return df.format(date);
     }
 
@@ -173,7 +210,7 @@ public class DateUtils {
      * @return
      */
     public static String formatAsDateTime(Date date) {
-        SimpleDateFormat df = new SimpleDateFormat(DEFAULT_DATE_TIME_FORMAT);
+        SimpleDateFormat df = getSimpleFormat(DEFAULT_DATE_TIME_FORMAT);
         return df.format(date);
     }
 
@@ -184,7 +221,7 @@ public class DateUtils {
      * @return
      */
     public static String formatAsDay(Date date) {
-        SimpleDateFormat df = new SimpleDateFormat("dd");
+        SimpleDateFormat df = getSimpleFormat("dd");
         return df.format(date);
     }
 
@@ -219,7 +256,7 @@ public class DateUtils {
      * @return
      */
     public static Date parseAsDate(String dateString) {
-        SimpleDateFormat df = new SimpleDateFormat(DEFAULT_DATE_FORMAT);
+        SimpleDateFormat df = getSimpleFormat(DEFAULT_DATE_FORMAT);
         try {
             return df.parse(dateString);
         } catch (ParseException e) {
@@ -234,7 +271,7 @@ public class DateUtils {
      * @return
      */
     public static Date parseAsDateTime(String dateTime) {
-        SimpleDateFormat simpledateformat = new SimpleDateFormat(DEFAULT_DATE_TIME_FORMAT);
+        SimpleDateFormat simpledateformat = getSimpleFormat(DEFAULT_DATE_TIME_FORMAT);
         try {
             return simpledateformat.parse(dateTime);
         } catch (ParseException e) {
@@ -461,7 +498,7 @@ public class DateUtils {
         String finalPattern = pattern;
         Stream.iterate(startDate, d -> d.plusDays(1)).
                 limit(distance + 1)
-                .forEach(f -> list.add(f.format(DateTimeFormatter.ofPattern(finalPattern))));
+                .forEach(f -> list.add(f.format(getFormatter(finalPattern))));
         return list;
     }
 
@@ -510,7 +547,7 @@ public class DateUtils {
             return list;
         }
         Stream.iterate(startDate, d -> d.plusWeeks(1)).
-                limit(distance + 1).forEach(f -> list.add(f.format(DateTimeFormatter.ofPattern(pattern))));
+                limit(distance + 1).forEach(f -> list.add(f.format(getFormatter(pattern))));
         return list;
     }
 
@@ -556,7 +593,7 @@ public class DateUtils {
 
         Stream.iterate(startDate, d -> d.plusMonths(1))
                 .limit(distance + 1)
-                .forEach(f -> list.add(f.format(DateTimeFormatter.ofPattern(pattern))));
+                .forEach(f -> list.add(f.format(getFormatter(pattern))));
         return list;
     }
 
@@ -0,0 +1,80 @@
+package com.jie.file.utils;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * 当天的日期字符串
+ * 上传时的日期目录、创建月份/周/日只和日期有关，每天只格式化一次，跨天后第一次调用时重新计算
+ *
+ * @author jie
+ */
+@Getter
+public final class DayStamp {
+
+    private static volatile DayStamp current;
+
+    /**
+     * 当天零点（毫秒）
+     */
+    private final long startMillis;
+
+    /**
+     * 次日零点（毫秒）
+     */
+    private final long endMillis;
+
+    private final LocalDate date;
+
+    /**
+     * yyyy-MM-dd，上传文件的日期目录
+     */
+    private final String dateDir;
+
+    /**
+     * yyyy/MM
+     */
+    private final String monthDir;
+
+    /**
+     * yyyy年MM月
+     */
+    private final String yearMonthEn;
+
+    /**
+     * yyyy年ww周
+     */
+    private final String yearWeekEn;
+
+    /**
+     * yyyy年MM月dd日
+     */
+    private final String dateEn;
+
+    private DayStamp(LocalDate date, ZoneId zone) {
+        this.date = date;
+        this.startMillis = date.atStartOfDay(zone).toInstant().toEpochMilli();
+        this.endMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        this.dateDir = date.format(DateUtils.getFormatter(DateUtils.DEFAULT_DATE_FORMAT));
+        this.monthDir = date.format(DateUtils.getFormatter(DateUtils.DEFAULT_MONTH_FORMAT_SLASH));
+        this.yearMonthEn = date.format(DateUtils.getFormatter(DateUtils.DEFAULT_MONTH_FORMAT_EN));
+        this.yearWeekEn = date.format(DateUtils.getFormatter(DateUtils.DEFAULT_WEEK_FORMAT_EN));
+        this.dateEn = date.format(DateUtils.getFormatter(DateUtils.DEFAULT_DATE_FORMAT_EN));
+    }
+
+    /**
+     * 获取当天的日期字符串，同一天内不创建对象
+     */
+    public static DayStamp today() {
+        long now = System.currentTimeMillis();
+        DayStamp stamp = current;
+        if (stamp == null || now < stamp.startMillis || now >= stamp.endMillis) {
+            ZoneId zone = ZoneId.systemDefault();
+            stamp = new DayStamp(LocalDate.now(zone), zone);
+            current = stamp;
+        }
+        return stamp;
+    }
+}
@@ -1,47 +1,79 @@
 package com.jie.file.utils;
 
 import com.jie.file.enumeration.DataType;
+import com.jie.file.enumeration.IconType;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.StringUtils;
 
 import java.io.File;
 import java.nio.file.Paths;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * 根据类型识别工具
  */
 @Slf4j
 public class FileDataTypeUtil {
-    final static DateTimeFormatter DTF = DateTimeFormatter.ofPattern("yyyy/MM");
     private final static String IMAGE = "image";
     private final static String VIDEO = "video";
     private final static String DIR = "application/x-director";
     private final static String AUDIO = "audio";
     private final static String TEXT = "text";
 
+    /**
+     * 内置的mime前缀到文件类型的映射
+     */
+    private final static Map<String, DataType> DEFAULT_DATA_TYPES = new LinkedHashMap<>();
+
+    static {
+        DEFAULT_DATA_TYPES.put(IMAGE + "/", DataType.IMAGE);
+        DEFAULT_DATA_TYPES.put(TEXT + "/", DataType.DOC);
+        DEFAULT_DATA_TYPES.put("application/vnd.ms-excel", DataType.DOC);
+        DEFAULT_DATA_TYPES.put("application/msword", DataType.DOC);
+        DEFAULT_DATA_TYPES.put("application/pdf", DataType.DOC);
+        DEFAULT_DATA_TYPES.put("application/vnd.ms-project", DataType.DOC);
+        DEFAULT_DATA_TYPES.put("application/vnd.ms-works", DataType.DOC);
+        DEFAULT_DATA_TYPES.put("application/x-javascript", DataType.DOC);
+        DEFAULT_DATA_TYPES.put("application/vnd.openxmlformats-officedocument", DataType.DOC);
+        DEFAULT_DATA_TYPES.put("application/vnd.ms-word.document.macroEnabled", DataType.DOC);
+        DEFAULT_DATA_TYPES.put("application/vnd.ms-word.template.macroEnabled", DataType.DOC);
+        DEFAULT_DATA_TYPES.put("application/vnd.ms-powerpoint", DataType.DOC);
+        DEFAULT_DATA_TYPES.put(VIDEO + "/", DataType.VIDEO);
+        DEFAULT_DATA_TYPES.put(DIR, DataType.DIR);
+        DEFAULT_DATA_TYPES.put(AUDIO + "/", DataType.AUDIO);
+    }
+
+    /**
+     * 自定义的mime前缀映射，优先于内置映射
+     */
+    private static final Map<String, DataType> customDataTypes = new LinkedHashMap<>();
+
+    /**
+     * 自定义的后缀图标，优先于 {@link IconType}
+     */
+    private static volatile Map<String, String> customIcons = Collections.emptyMap();
+
+    private static volatile PrefixTrie<DataType> dataTypeTrie = buildDataTypeTrie();
+
     /**
      * 根据mine类型，返回文件类型
+     * 按最长匹配的mime前缀查找，不区分大小写；没有匹配的前缀时按类型名称中包含的关键字判断
      */
     public static DataType getDataType(String mime) {
         if (mime == null || "".equals(mime)) {
             return DataType.OTHER;
         }
+        DataType dataType = dataTypeTrie.match(mime);
+        if (dataType != null) {
+            return dataType;
+        }
         if (mime.contains(IMAGE)) {
             return DataType.IMAGE;
-        } else if (mime.contains(TEXT)
-                || mime.startsWith("application/vnd.ms-excel")
-                || mime.startsWith("application/msword")
-                || mime.startsWith("application/pdf")
-                || mime.startsWith("application/vnd.ms-project")
-                || mime.startsWith("application/vnd.ms-works")
-                || mime.startsWith("application/x-javascript")
-                || mime.startsWith("application/vnd.openxmlformats-officedocument")
-                || mime.startsWith("application/vnd.ms-word.document.macroEnabled")
-                || mime.startsWith("application/vnd.ms-word.template.macroEnabled")
-                || mime.startsWith("application/vnd.ms-powerpoint")
-        ) {
+        } else if (mime.contains(TEXT)) {
             return DataType.DOC;
         } else if (mime.contains(VIDEO)) {
             return DataType.VIDEO;
@@ -54,9 +86,55 @@ public class FileDataTypeUtil {
         }
     }
 
+    /**
+     * 根据后缀返回图标，不区分大小写，自定义的图标优先
+     */
+    public static String getIcon(String ext) {
+        if (ext != null && !ext.isEmpty()) {
+            Map<String, String> icons = customIcons;
+            if (!icons.isEmpty()) {
+                String icon = icons.get(ext.toLowerCase(Locale.ROOT));
+                if (icon != null) {
+                    return icon;
+                }
+            }
+        }
+        return IconType.getIcon(ext).getIcon();
+    }
+
+    /**
+     * 添加mime前缀到文件类型的映射，用于启动时加载配置，添加后重建前缀树
+     *
+     * @param mimePrefix mime前缀，如 application/vnd.rar
+     * @param dataType   文件类型
+     */
+    public static synchronized void registerDataType(String mimePrefix, DataType dataType) {
+        customDataTypes.put(mimePrefix.toLowerCase(Locale.ROOT), dataType);
+        dataTypeTrie = buildDataTypeTrie();
+    }
+
+    /**
+     * 添加后缀到图标的映射，用于启动时加载配置
+     *
+     * @param ext  后缀，不含点
+     * @param icon 图标
+     */
+    public static synchronized void registerIcon(String ext, String icon) {
+        Map<String, String> icons = new HashMap<>(customIcons);
+        icons.put(ext.toLowerCase(Locale.ROOT), icon);
+        customIcons = icons;
+    }
+
+    private static PrefixTrie<DataType> buildDataTypeTrie() {
+        PrefixTrie<DataType> trie = new PrefixTrie<>();
+        DEFAULT_DATA_TYPES.forEach(trie::put);
+        customDataTypes.forEach(trie::put);
+        return trie;
+    }
+
     public static String getUploadPathPrefix(String uploadPathPrefix) {
         //日期文件夹
-        String secDir = LocalDate.now().format(DTF);
+        String secDir = DayStamp.today().getMonthDir();
         // web服务器存放的绝对路径 D:\\uploadFiles\\2020\\05
         String absolutePath = Paths.get(uploadPathPrefix, secDir).toString();
         return absolutePath;
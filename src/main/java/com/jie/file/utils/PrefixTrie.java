@@ -0,0 +1,57 @@
+package com.jie.file.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 不区分大小写的前缀树，查找与输入匹配的最长前缀对应的值
+ * 构建完成后只读，可以在多个线程中同时查找；需要修改时重新构建
+ *
+ * @author jie
+ */
+public final class PrefixTrie<V> {
+
+    private final Node<V> root = new Node<>();
+
+    /**
+     * 添加前缀，同一前缀重复添加时后添加的覆盖先添加的
+     *
+     * @param prefix 前缀
+     * @param value  值
+     */
+    public void put(String prefix, V value) {
+        Node<V> node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.children.computeIfAbsent(Character.toLowerCase(prefix.charAt(i)), c -> new Node<>());
+        }
+        node.value = value;
+    }
+
+    /**
+     * 查找最长匹配前缀的值，输入为ASCII时查找过程不创建对象
+     *
+     * @param text 输入
+     * @return 最长匹配前缀的值，没有匹配的前缀时返回null
+     */
+    public V match(String text) {
+        Node<V> node = root;
+        V value = root.value;
+        for (int i = 0; i < text.length(); i++) {
+            node = node.children.get(Character.toLowerCase(text.charAt(i)));
+            if (node == null) {
+                break;
+            }
+            if (node.value != null) {
+                value = node.value;
+            }
+        }
+        return value;
+    }
+
+    private static final class Node<V> {
+
+        private final Map<Character, Node<V>> children = new HashMap<>(4);
+
+        private V value;
+    }
+}
@@ -0,0 +1,123 @@
+package com.jie.file.admission;
+
+import com.jie.file.exception.UploadRejectedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 上传准入控制：通道隔离、字节额度、等待超时、超大文件
+ *
+ * @author jie
+ */
+class UploadAdmissionControllerTest {
+
+    private static final long SMALL = 1024;
+
+    @Test
+    void largeUploadsDoNotBlockSmallUploads() throws Exception {
+        UploadAdmissionController controller = new UploadAdmissionController(SMALL, 1, 1, 1 << 20, 0);
+        UploadAdmissionController.Permit large = controller.acquire(4096);
+        // 大文件通道已满，小文件仍可上传
+        UploadAdmissionController.Permit small = controller.acquire(100);
+        assertEquals(1, controller.getLargeActive());
+        assertEquals(1, controller.getSmallActive());
+        assertThrows(UploadRejectedException.class, () -> controller.acquire(4096));
+        assertThrows(UploadRejectedException.class, () -> controller.acquire(100));
+        assertEquals(2, controller.getRejectedCount());
+
+        small.close();
+        large.close();
+        assertEquals(0, controller.getLargeActive());
+        assertEquals(0, controller.getSmallActive());
+    }
+
+    @Test
+    void unknownSizeUsesLargeLane() throws Exception {
+        UploadAdmissionController controller = new UploadAdmissionController(SMALL, 4, 1, 1 << 20, 0);
+        try (UploadAdmissionController.Permit ignored = controller.acquire(-1)) {
+            assertEquals(1, controller.getLargeActive());
+            assertEquals(0, controller.getInFlightBytes());
+        }
+    }
+
+    @Test
+    void inFlightBytesAreBounded() throws Exception {
+        UploadAdmissionController controller = new UploadAdmissionController(SMALL, 4, 4, 10_000, 0);
+        UploadAdmissionController.Permit first = controller.acquire(6_000);
+        assertEquals(6_000, controller.getInFlightBytes());
+        // 数量未满，但总字节数超过上限
+        assertThrows(UploadRejectedException.class, () -> controller.acquire(5_000));
+        UploadAdmissionController.Permit second = controller.acquire(4_000);
+        assertEquals(10_000, controller.getInFlightBytes());
+
+        first.close();
+        // 重复关闭不会重复释放
+        first.close();
+        assertEquals(4_000, controller.getInFlightBytes());
+        second.close();
+        assertEquals(0, controller.getInFlightBytes());
+    }
+
+    @Test
+    void waitingUploadIsRejectedAfterTimeout() throws Exception {
+        UploadAdmissionController controller = new UploadAdmissionController(SMALL, 1, 1, 1 << 20, 50);
+        try (UploadAdmissionController.Permit ignored = controller.acquire(100)) {
+            long start = System.nanoTime();
+            assertThrows(UploadRejectedException.class, () -> controller.acquire(100));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+            assertEquals(0, controller.getSmallWaiting());
+            assertEquals(1, controller.getRejectedCount());
+        }
+    }
+
+    @Test
+    void waitingUploadIsAdmittedWhenPermitIsReleased() throws Exception {
+        UploadAdmissionController controller = new UploadAdmissionController(SMALL, 1, 1, 1 << 20, 5_000);
+        UploadAdmissionController.Permit first = controller.acquire(100);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            Future<UploadAdmissionController.Permit> waiting = executor.submit(() -> {
+                started.countDown();
+                return controller.acquire(100);
+            });
+            started.await();
+            while (controller.getSmallWaiting() == 0) {
+                Thread.sleep(1);
+            }
+            assertFalse(waiting.isDone());
+            first.close();
+            waiting.get(5, TimeUnit.SECONDS).close();
+            assertEquals(0, controller.getSmallActive());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void oversizeUploadIsAdmittedAlone() throws Exception {
+        UploadAdmissionController controller = new UploadAdmissionController(SMALL, 1, 4, 10_000, 0);
+        // 单个文件超过总字节数上限，没有其他大文件上传时可以进行
+        UploadAdmissionController.Permit oversize = controller.acquire(50_000);
+        assertEquals(50_000, controller.getInFlightBytes());
+        assertThrows(UploadRejectedException.class, () -> controller.acquire(2_000));
+        oversize.close();
+
+        // 有其他大文件上传时需要等待
+        UploadAdmissionController.Permit normal = controller.acquire(2_000);
+        assertThrows(UploadRejectedException.class, () -> controller.acquire(50_000));
+        normal.close();
+        controller.acquire(50_000).close();
+        assertEquals(0, controller.getLargeActive());
+    }
+}
@@ -0,0 +1,82 @@
+package com.jie.file.dedup;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 去重索引的引用计数：释放、删除成功后提交、删除失败后恢复
+ *
+ * @author jie
+ */
+class FileDedupIndexTest {
+
+    private static final String MD5 = "0123456789abcdef0123456789abcdef";
+
+    @TempDir
+    Path tempDir;
+
+    private FileDedupIndex index(String type) {
+        return "LOCAL".equals(type) ? new LocalFileDedupIndex(tempDir.toString()) : new MemoryFileDedupIndex();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"MEMORY", "LOCAL"})
+    void sharedFileIsDeletableOnlyAfterLastRelease(String type) {
+        FileDedupIndex index = index(type);
+        assertNull(index.putIfAbsent(MD5, 10, "bucket/a.txt"));
+        assertEquals("bucket/a.txt", index.putIfAbsent(MD5, 10, "bucket/b.txt"));
+
+        assertFalse(index.release("bucket/a.txt"));
+        assertEquals("bucket/a.txt", index.get(MD5, 10));
+
+        assertTrue(index.release("bucket/a.txt"));
+        assertNull(index.get(MD5, 10), "待删除的文件不能再被秒传命中");
+        index.commitRelease("bucket/a.txt");
+        assertNull(index.get(MD5, 10));
+        assertTrue(index.release("bucket/a.txt"), "已移除的文件视为没有引用");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"MEMORY", "LOCAL"})
+    void failedDeleteRestoresReference(String type) {
+        FileDedupIndex index = index(type);
+        index.putIfAbsent(MD5, 10, "bucket/a.txt");
+        index.putIfAbsent(MD5, 10, "bucket/b.txt");
+        assertFalse(index.release("bucket/a.txt"));
+
+        assertTrue(index.release("bucket/a.txt"));
+        index.rollbackRelease("bucket/a.txt");
+        assertEquals("bucket/a.txt", index.get(MD5, 10));
+
+        // 恢复后再共享一次，重试删除只扣减一次引用
+        assertEquals("bucket/a.txt", index.putIfAbsent(MD5, 10, "bucket/c.txt"));
+        assertFalse(index.release("bucket/a.txt"));
+        assertTrue(index.release("bucket/a.txt"));
+        index.commitRelease("bucket/a.txt");
+        assertNull(index.get(MD5, 10));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"MEMORY", "LOCAL"})
+    void rollbackIgnoredWhenContentRegisteredAgain(String type) {
+        FileDedupIndex index = index(type);
+        index.putIfAbsent(MD5, 10, "bucket/a.txt");
+        assertTrue(index.release("bucket/a.txt"));
+        // 删除期间上传了相同内容的新文件
+        assertNull(index.putIfAbsent(MD5, 10, "bucket/d.txt"));
+
+        index.rollbackRelease("bucket/a.txt");
+        assertEquals("bucket/d.txt", index.get(MD5, 10));
+        assertTrue(index.release("bucket/a.txt"), "旧文件不再被索引，可以直接删除");
+        index.commitRelease("bucket/a.txt");
+        assertEquals("bucket/d.txt", index.get(MD5, 10));
+    }
+}
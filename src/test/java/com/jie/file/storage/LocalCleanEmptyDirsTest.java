@@ -0,0 +1,90 @@
+package com.jie.file.storage;
+
+import com.jie.file.properties.FileServerProperties;
+import com.jie.file.utils.DayStamp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 本地存储批量删除后只清理空的日期目录
+ *
+ * @author jie
+ */
+class LocalCleanEmptyDirsTest {
+
+    @TempDir
+    Path root;
+
+    private Path bucket;
+
+    private LocalAutoConfigure.LocalServiceImpl strategy;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        FileServerProperties.Properties local = new FileServerProperties.Properties();
+        local.setEndpoint(root.toString());
+        local.setUriPrefix("http://127.0.0.1/");
+        local.setBucketName("bucket");
+        FileServerProperties fileProperties = new FileServerProperties();
+        fileProperties.setLocal(local);
+        fileProperties.setStoragePath(root.resolve("tmp").toString());
+        strategy = new LocalAutoConfigure.LocalServiceImpl();
+        ReflectionTestUtils.setField(strategy, "fileProperties", fileProperties);
+        strategy.afterPropertiesSet();
+        bucket = root.resolve("bucket");
+    }
+
+    @AfterEach
+    void tearDown() {
+        strategy.destroy();
+    }
+
+    @Test
+    void onlyEmptyDateDirsAreRemoved() throws Exception {
+        String today = DayStamp.today().getDateDir();
+        Path old = write("custom/2020-01-01/a.txt");
+        Path current = write("custom/" + today + "/b.txt");
+        Path plain = write("custom/other/c.txt");
+        Path solo = write("solo/2020-01-01/d.txt");
+
+        assertTrue(strategy.batchDelete(Arrays.asList(
+                bucket.relativize(old).toString(),
+                bucket.relativize(current).toString(),
+                bucket.relativize(plain).toString(),
+                bucket.relativize(solo).toString())).isSuccess());
+
+        assertFalse(Files.exists(old.getParent()), "空的历史日期目录被删除");
+        assertTrue(Files.isDirectory(current.getParent()), "当天的日期目录保留");
+        assertTrue(Files.isDirectory(plain.getParent()), "非日期目录保留");
+        assertTrue(Files.isDirectory(bucket.resolve("custom")), "自定义目录保留");
+        assertFalse(Files.exists(solo.getParent()));
+        assertTrue(Files.isDirectory(bucket.resolve("solo")), "日期目录删除后变空的自定义目录也保留");
+    }
+
+    @Test
+    void nonEmptyDateDirIsKept() throws Exception {
+        Path a = write("2020-01-01/a.txt");
+        Path b = write("2020-01-01/b.txt");
+
+        assertTrue(strategy.batchDelete(Arrays.asList(bucket.relativize(a).toString())).isSuccess());
+
+        assertTrue(Files.exists(b));
+    }
+
+    private Path write(String name) throws Exception {
+        Path path = bucket.resolve(name);
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[]{1});
+        return path;
+    }
+}
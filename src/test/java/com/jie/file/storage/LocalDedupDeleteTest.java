@@ -0,0 +1,103 @@
+package com.jie.file.storage;
+
+import com.jie.file.dedup.MemoryFileDedupIndex;
+import com.jie.file.entity.File;
+import com.jie.file.properties.FileServerProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 开启去重时本地存储删除共享文件的引用计数
+ *
+ * @author jie
+ */
+class LocalDedupDeleteTest {
+
+    private static final byte[] CONTENT = "shared content".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path root;
+
+    private LocalAutoConfigure.LocalServiceImpl strategy;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        FileServerProperties.Properties local = new FileServerProperties.Properties();
+        local.setEndpoint(root.toString());
+        local.setUriPrefix("http://127.0.0.1/");
+        local.setBucketName("bucket");
+        FileServerProperties fileProperties = new FileServerProperties();
+        fileProperties.setLocal(local);
+        fileProperties.setStoragePath(root.resolve("tmp").toString());
+        strategy = new LocalAutoConfigure.LocalServiceImpl();
+        ReflectionTestUtils.setField(strategy, "fileProperties", fileProperties);
+        ReflectionTestUtils.setField(strategy, "dedupIndex", new MemoryFileDedupIndex());
+        strategy.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        strategy.destroy();
+    }
+
+    @Test
+    void sharedFileRemovedAfterLastDelete() throws Exception {
+        File a = strategy.upload(new MockMultipartFile("file", "a.txt", "text/plain", CONTENT));
+        File b = strategy.upload(new MockMultipartFile("file", "b.txt", "text/plain", CONTENT));
+        assertEquals(a.getRelativePath(), b.getRelativePath());
+        Path stored = root.resolve(a.getRelativePath());
+
+        assertTrue(strategy.delete(a));
+        assertTrue(Files.exists(stored), "仍被b引用，不能删除");
+
+        assertTrue(strategy.delete(b));
+        assertFalse(Files.exists(stored));
+    }
+
+    @Test
+    void failedDeleteKeepsReference() throws Exception {
+        File a = strategy.upload(new MockMultipartFile("file", "a.txt", "text/plain", CONTENT));
+        File b = strategy.upload(new MockMultipartFile("file", "b.txt", "text/plain", CONTENT));
+        Path stored = root.resolve(a.getRelativePath());
+        assertTrue(strategy.batchDeleteFiles(Collections.singletonList(a)).isSuccess());
+
+        // 用非空目录替换文件，使删除失败
+        Files.delete(stored);
+        Files.createDirectories(stored.resolve("locked"));
+        assertFalse(strategy.batchDeleteFiles(Collections.singletonList(b)).isSuccess());
+
+        // 删除失败后引用被恢复，相同内容的上传仍然共享该文件
+        Files.delete(stored.resolve("locked"));
+        Files.delete(stored);
+        Files.write(stored, CONTENT);
+        File c = strategy.upload(new MockMultipartFile("file", "c.txt", "text/plain", CONTENT));
+        assertEquals(b.getRelativePath(), c.getRelativePath());
+
+        // 重试删除b只扣减一次引用，c仍可访问
+        assertTrue(strategy.batchDeleteFiles(Collections.singletonList(b)).isSuccess());
+        assertTrue(Files.exists(stored));
+        assertTrue(strategy.batchDeleteFiles(Collections.singletonList(c)).isSuccess());
+        assertFalse(Files.exists(stored));
+    }
+
+    @Test
+    void differentContentNotShared() throws Exception {
+        File a = strategy.upload(new MockMultipartFile("file", "a.txt", "text/plain", CONTENT));
+        File b = strategy.upload(new MockMultipartFile("file", "b.txt", "text/plain", "other".getBytes(StandardCharsets.UTF_8)));
+        assertNotEquals(a.getRelativePath(), b.getRelativePath());
+    }
+}
@@ -0,0 +1,96 @@
+package com.jie.file.strategy.impl;
+
+import com.jie.file.cache.FileReadCache;
+import com.jie.file.entity.DeleteResult;
+import com.jie.file.strategy.FileStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 内容缓存策略删除文件时移除缓存
+ *
+ * @author jie
+ */
+class CachingFileStrategyTest {
+
+    private final FileReadCache cache = new FileReadCache(1024 * 1024, 1024, 300);
+
+    private final FileStrategy delegate = mock(FileStrategy.class);
+
+    private final CachingFileStrategy strategy = new CachingFileStrategy(delegate, cache);
+
+    @Test
+    void batchDeleteConsumesSingleUseIterableOnce() throws Exception {
+        cache.put("a.txt", new byte[]{1});
+        cache.put("b.txt", new byte[]{2});
+        when(delegate.batchDelete(any())).thenAnswer(invocation -> {
+            Iterable<String> names = invocation.getArgument(0);
+            DeleteResult result = new DeleteResult();
+            names.forEach(result::addSuccess);
+            return result;
+        });
+
+        Iterable<String> names = Stream.of("a.txt", "b.txt")::iterator;
+        DeleteResult result = strategy.batchDelete(names);
+
+        assertEquals(Arrays.asList("a.txt", "b.txt"), result.getSuccesses());
+        assertNull(cache.get("a.txt"));
+        assertNull(cache.get("b.txt"));
+    }
+
+    @Test
+    void contentCachedDuringDeleteIsRemovedAfterwards() throws Exception {
+        when(delegate.delete(any(String.class))).thenAnswer(invocation -> {
+            // 删除期间的并发读取重新缓存了内容
+            cache.put("a.txt", new byte[]{1});
+            return true;
+        });
+
+        strategy.delete("a.txt");
+
+        assertNull(cache.get("a.txt"));
+    }
+
+    @Test
+    void contentReadBeforeDeleteIsNotCachedAfterwards() throws Exception {
+        when(delegate.delete(any(String.class))).thenReturn(true);
+        when(delegate.getFileInputStream("a.txt")).thenReturn(new ByteArrayInputStream(new byte[]{1}) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    // 流打开后、读完前文件被删除
+                    try {
+                        strategy.delete("a.txt");
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return n;
+            }
+        });
+
+        assertEquals(1, strategy.getFileInputStream("a.txt").read());
+
+        assertNull(cache.get("a.txt"));
+    }
+
+    @Test
+    void contentIsCachedWhenNotDeleted() throws Exception {
+        when(delegate.getFileInputStream("a.txt")).thenReturn(new ByteArrayInputStream(new byte[]{1}));
+
+        strategy.getFileInputStream("a.txt");
+
+        assertArrayEquals(new byte[]{1}, cache.get("a.txt"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.jie.file.strategy.impl;
+
+import com.jie.file.entity.File;
+import com.jie.file.enumeration.DataType;
+import com.jie.file.enumeration.FileStorageType;
+import com.jie.file.strategy.FileStrategy;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 监控指标策略的outcome和文件类型标签
+ *
+ * @author jie
+ */
+class MeteredFileStrategyTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final FileStrategy delegate = mock(FileStrategy.class);
+
+    private final MeteredFileStrategy strategy = new MeteredFileStrategy(delegate, registry, FileStorageType.LOCAL);
+
+    @Test
+    void falseResultIsRecordedAsFailure() throws Exception {
+        when(delegate.delete(any(String.class))).thenReturn(false);
+
+        strategy.delete("a.txt");
+
+        assertEquals(1, timer("delete", "failure").count());
+        assertNull(registry.find("jie.file.operation").tag("outcome", "success").timer());
+        assertEquals(1, registry.get("jie.file.errors").tag("dataType", "DOC").tag("exception", "NONE").counter().count());
+    }
+
+    @Test
+    void exceptionIsRecordedAsError() throws Exception {
+        when(delegate.delete(any(String.class))).thenThrow(new IOException());
+
+        assertThrows(IOException.class, () -> strategy.delete("a.txt"));
+
+        assertEquals(1, timer("delete", "error").count());
+        assertEquals(1, registry.get("jie.file.errors").tag("dataType", "DOC").tag("exception", "IOException").counter().count());
+    }
+
+    @Test
+    void uploadIsTaggedWithDetectedDataType() throws Exception {
+        // 客户端声称是图片，识别后是文档
+        MockMultipartFile upload = new MockMultipartFile("file", "a.png", "image/png", new byte[]{'%', 'P', 'D', 'F', '-'});
+        when(delegate.upload(upload)).thenReturn(File.builder().dataType(DataType.DOC).build());
+
+        strategy.upload(upload);
+
+        assertEquals(1, registry.get("jie.file.operation").tag("operation", "upload")
+                .tag("dataType", "DOC").tag("outcome", "success").timer().count());
+        assertEquals(5, registry.get("jie.file.bytes").tag("dataType", "DOC").counter().count());
+        assertNull(registry.find("jie.file.operation").tag("dataType", "IMAGE").timer());
+    }
+
+    @Test
+    void metersAreReused() throws Exception {
+        when(delegate.delete(any(String.class))).thenReturn(true);
+
+        strategy.delete("a.txt");
+        Timer first = timer("delete", "success");
+        strategy.delete("b.txt");
+
+        assertSame(first, timer("delete", "success"));
+        assertEquals(2, first.count());
+        assertNull(registry.find("jie.file.errors").counter());
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return registry.get("jie.file.operation").tag("operation", operation).tag("outcome", outcome).timer();
+    }
+}
@@ -0,0 +1,88 @@
+package com.jie.file.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 文件头识别：容器格式的后缀细化、短魔数的字段校验
+ *
+ * @author jie
+ */
+class ContentTypeSnifferTest {
+
+    private static final byte[] ZIP = {'P', 'K', 0x03, 0x04, 0x14, 0x00};
+
+    private static final byte[] OLE = {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1};
+
+    @Test
+    void zipIsRefinedOnlyToZipBasedTypes() {
+        assertEquals("application/vnd.openxmlformats-officedocument.wordprocessingml.document", detect(ZIP, "a.docx"));
+        assertEquals("application/java-archive", detect(ZIP, "a.jar"));
+        assertEquals("application/epub+zip", detect(ZIP, "a.epub"));
+        // 后缀不是基于zip的类型时不能借后缀改变类型
+        assertEquals("application/zip", detect(ZIP, "a.pdf"));
+        assertEquals("application/zip", detect(ZIP, "a.json"));
+        assertEquals("application/zip", detect(ZIP, "a.png"));
+    }
+
+    @Test
+    void oleIsRefinedOnlyToOleBasedTypes() {
+        assertEquals("application/msword", detect(OLE, "a.doc"));
+        assertEquals("application/vnd.ms-excel", detect(OLE, "a.xls"));
+        assertEquals("application/x-ole-storage", detect(OLE, "a.pdf"));
+    }
+
+    @Test
+    void bmpRequiresValidHeader() {
+        byte[] bmp = new byte[64];
+        bmp[0] = 'B';
+        bmp[1] = 'M';
+        // 文件大小 64，像素数据偏移 54，DIB头长度 40
+        bmp[2] = 64;
+        bmp[10] = 54;
+        bmp[14] = 40;
+        assertEquals("image/bmp", detect(bmp, null));
+        assertNull(detect(ascii("BM is a text file that starts with BM"), null));
+        bmp[14] = 41;
+        assertNull(detect(bmp, null));
+    }
+
+    @Test
+    void mpegAudioRequiresValidFrameHeader() {
+        // MPEG1 Layer III，128kbps，44.1kHz
+        assertEquals("audio/mpeg", detect(new byte[]{(byte) 0xFF, (byte) 0xFB, (byte) 0x90, 0x64}, "a.mp3"));
+        // 比特率索引15无效
+        assertNull(detect(new byte[]{(byte) 0xFF, (byte) 0xFB, (byte) 0xF0, 0x64}, "a.mp3"));
+        // 采样率索引3无效
+        assertNull(detect(new byte[]{(byte) 0xFF, (byte) 0xFB, (byte) 0x9C, 0x64}, "a.mp3"));
+        assertNull(detect(new byte[]{(byte) 0xFF, (byte) 0xFB}, "a.mp3"));
+        assertEquals("audio/mpeg", detect(ascii("ID3\u0003"), "a.mp3"));
+    }
+
+    @Test
+    void aacRequiresValidAdtsHeader() {
+        // MPEG-4 AAC LC，44.1kHz，双声道，帧长度 371
+        byte[] adts = {(byte) 0xFF, (byte) 0xF1, 0x50, (byte) 0x80, 0x2E, 0x7F, (byte) 0xFC};
+        assertEquals("audio/aac", detect(adts, "a.aac"));
+        // 采样率索引15无效
+        adts[2] = 0x7C;
+        assertNull(detect(adts, "a.aac"));
+    }
+
+    @Test
+    void plainTextIsNotRecognized() {
+        assertNull(detect("hello world".getBytes(StandardCharsets.UTF_8), "a.txt"));
+    }
+
+    private static String detect(byte[] header, String filename) {
+        return ContentTypeSniffer.detect(header, header.length, filename);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}